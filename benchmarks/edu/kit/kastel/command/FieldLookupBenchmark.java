@@ -0,0 +1,88 @@
+package edu.kit.kastel.command;
+
+import edu.kit.kastel.game.BenchmarkMaps;
+import edu.kit.kastel.game.World;
+import edu.kit.kastel.game.worldbuilder.Coordinate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures looking up random fields, once directly in the world and once through the field command,
+ * including parsing its argument. The output of the command is discarded.
+ *
+ * @author uwwfh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FieldLookupBenchmark {
+
+    private static final int LOOKUPS = 1 << 12;
+    private static final long SEED = 0x4649454CL;
+
+    /**
+     * The side length of the square map.
+     */
+    @Param({"64", "2048"})
+    public int size;
+
+    private final Coordinate[] coordinates = new Coordinate[LOOKUPS];
+    private final String[][] arguments = new String[LOOKUPS][];
+    private final FieldCommand command = new FieldCommand();
+    private World world;
+    private Session session;
+    private int next;
+
+    /**
+     * Constructs the world and the random lookups, once for all iterations.
+     */
+    @Setup
+    public void construct() {
+        world = new World(BenchmarkMaps.generate(size, size, 0.5));
+        PrintStream discarded = new PrintStream(OutputStream.nullOutputStream());
+        session = new Session(world, discarded, discarded);
+        Random random = new Random(SEED);
+        for (int i = 0; i < LOOKUPS; ++i) {
+            coordinates[i] = new Coordinate(random.nextInt(size), random.nextInt(size));
+            arguments[i] = new String[] {coordinates[i].toString()};
+        }
+    }
+
+    /**
+     * Looks up a random field in the world.
+     * @return The character of the field.
+     */
+    @Benchmark
+    public Character world() {
+        next = (next + 1) & (LOOKUPS - 1);
+        return world.asCharacter(coordinates[next]);
+    }
+
+    /**
+     * Looks up a random field through the field command.
+     * @param blackhole The sink for the result of the command.
+     */
+    @Benchmark
+    public void command(Blackhole blackhole) {
+        next = (next + 1) & (LOOKUPS - 1);
+        blackhole.consume(command.execute(session, arguments[next]));
+    }
+}
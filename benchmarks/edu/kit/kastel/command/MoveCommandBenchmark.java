@@ -0,0 +1,91 @@
+package edu.kit.kastel.command;
+
+import edu.kit.kastel.game.BenchmarkMaps;
+import edu.kit.kastel.game.StepCounter;
+import edu.kit.kastel.game.World;
+import edu.kit.kastel.game.WorldBackend;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the move command end to end: a session reads "move n" from its input, parses and executes it.
+ * Each invocation starts on a freshly constructed world, which is not part of the measurement.
+ * The world is infinite, so the ant performs every move instead of riding its highway off the map, and the
+ * throughput is reported in steps per second by the {@link StepCounter}. The output of the session is discarded.
+ *
+ * @author uwwfh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MoveCommandBenchmark {
+
+    private static final int SIZE = 4096;
+    private static final String SCRIPT_FORMAT = "move %d%nquit%n";
+
+    /**
+     * The amount of moves to perform.
+     */
+    @Param({"1000000", "10000000", "100000000", "1000000000"})
+    public long moves;
+
+    /**
+     * The probability of a tile being black, 0 for an empty map.
+     */
+    @Param({"0.0", "0.5"})
+    public double density;
+
+    private List<String> lines;
+    private byte[] script;
+    private Session session;
+
+    /**
+     * Generates the map and the script, once for all iterations.
+     */
+    @Setup(Level.Trial)
+    public void generate() {
+        lines = BenchmarkMaps.generate(SIZE, SIZE, density);
+        script = SCRIPT_FORMAT.formatted(moves).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Creates a session on a fresh world before every invocation.
+     */
+    @Setup(Level.Invocation)
+    public void construct() {
+        PrintStream discarded = new PrintStream(OutputStream.nullOutputStream());
+        session = new Session(new World(lines, WorldBackend.INFINITE), discarded, discarded);
+    }
+
+    /**
+     * Runs the session.
+     * @param counter The counter of the performed steps.
+     * @return The session.
+     */
+    @Benchmark
+    public Session move(StepCounter counter) {
+        session.run(new ByteArrayInputStream(script));
+        counter.steps += session.getWorld().getStepCount();
+        return session;
+    }
+}
@@ -0,0 +1,93 @@
+package edu.kit.kastel.game;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures stepping the ant through a fresh world, once step by step through {@link Ant#move()} and once
+ * through the simulation engine of the world. Each invocation starts on a freshly constructed world, which
+ * is not part of the measurement. The world is infinite, so the ant performs every step instead of riding its
+ * highway off the map, and the throughput is reported in steps per second by the {@link StepCounter}.
+ *
+ * @author uwwfh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AntStepBenchmark {
+
+    private static final int SIZE = 4096;
+
+    /**
+     * The amount of steps to perform.
+     */
+    @Param({"1000000", "10000000", "100000000", "1000000000"})
+    public long steps;
+
+    /**
+     * The probability of a tile being black, 0 for an empty map.
+     */
+    @Param({"0.0", "0.5"})
+    public double density;
+
+    private List<String> lines;
+    private World world;
+
+    /**
+     * Generates the map, once for all iterations.
+     */
+    @Setup(Level.Trial)
+    public void generate() {
+        lines = BenchmarkMaps.generate(SIZE, SIZE, density);
+    }
+
+    /**
+     * Constructs a fresh world before every invocation.
+     */
+    @Setup(Level.Invocation)
+    public void construct() {
+        world = new World(lines, WorldBackend.INFINITE);
+    }
+
+    /**
+     * Steps the ant one move at a time.
+     * @param counter The counter of the performed steps.
+     * @return The world.
+     */
+    @Benchmark
+    public World move(StepCounter counter) {
+        Ant ant = world.getAnt();
+        for (long i = 0; i < steps; ++i) {
+            ant.move();
+        }
+        counter.steps += steps;
+        return world;
+    }
+
+    /**
+     * Steps the ant through the simulation engine, as the move command does.
+     * @param counter The counter of the performed steps.
+     * @return The world.
+     */
+    @Benchmark
+    public World advance(StepCounter counter) {
+        counter.steps += world.advance(steps);
+        return world;
+    }
+}
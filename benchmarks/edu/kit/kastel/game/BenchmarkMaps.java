@@ -0,0 +1,63 @@
+package edu.kit.kastel.game;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates reproducible world maps for the benchmarks.
+ * The ant always starts facing north on a white tile in the center of the map.
+ *
+ * @author uwwfh
+ */
+public final class BenchmarkMaps {
+
+    private static final long SEED = 0x414E54L;
+    private static final char WHITE_TILE = '0';
+    private static final char BLACK_TILE = '1';
+    private static final char ANT = 'N';
+
+    private BenchmarkMaps() {
+    }
+
+    /**
+     * Generates the lines of a map.
+     * @param width The width of the map.
+     * @param height The height of the map.
+     * @param density The probability of a tile being black, 0 for an empty map.
+     * @return The lines of the map.
+     */
+    public static List<String> generate(int width, int height, double density) {
+        Random random = new Random(SEED);
+        List<String> lines = new ArrayList<>(height);
+        char[] line = new char[width];
+        for (int y = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x) {
+                line[x] = density > 0 && random.nextDouble() < density ? BLACK_TILE : WHITE_TILE;
+            }
+            if (y == height / 2) {
+                line[width / 2] = ANT;
+            }
+            lines.add(new String(line));
+        }
+        return lines;
+    }
+
+    /**
+     * Generates a map and writes it to a temporary file, which is deleted when the virtual machine exits.
+     * @param width The width of the map.
+     * @param height The height of the map.
+     * @param density The probability of a tile being black, 0 for an empty map.
+     * @return The path of the file.
+     * @throws IOException if the file could not be written.
+     */
+    public static Path generateFile(int width, int height, double density) throws IOException {
+        Path path = Files.createTempFile("world", ".in");
+        path.toFile().deleteOnExit();
+        Files.write(path, generate(width, height, density));
+        return path;
+    }
+}
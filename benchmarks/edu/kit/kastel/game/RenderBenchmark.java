@@ -0,0 +1,65 @@
+package edu.kit.kastel.game;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures rendering worlds of several sizes, both into a string and streamed as by the print command.
+ *
+ * @author uwwfh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RenderBenchmark {
+
+    /**
+     * The side length of the square map.
+     */
+    @Param({"64", "512", "2048"})
+    public int size;
+
+    private World world;
+
+    /**
+     * Constructs the world, once for all iterations.
+     */
+    @Setup
+    public void construct() {
+        world = new World(BenchmarkMaps.generate(size, size, 0.5));
+    }
+
+    /**
+     * Renders the world into a string.
+     * @return The rendered world.
+     */
+    @Benchmark
+    public String toText() {
+        return world.toString();
+    }
+
+    /**
+     * Streams the rendered world into a stream discarding everything.
+     * @throws IOException never.
+     */
+    @Benchmark
+    public void print() throws IOException {
+        world.print(OutputStream.nullOutputStream());
+    }
+}
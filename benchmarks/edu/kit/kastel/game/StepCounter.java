@@ -0,0 +1,31 @@
+package edu.kit.kastel.game;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Counts the steps the ants actually performed in a benchmark. JMH reports the count as the secondary result
+ * "steps", normalized to steps per unit of time, next to the invocations of the benchmark.
+ *
+ * @author uwwfh
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class StepCounter {
+
+    /**
+     * The amount of steps performed in the current iteration.
+     */
+    public long steps;
+
+    /**
+     * Resets the count before every iteration.
+     */
+    @Setup(Level.Iteration)
+    public void reset() {
+        steps = 0;
+    }
+}
@@ -0,0 +1,75 @@
+package edu.kit.kastel.game;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the construction of worlds of several sizes, both from lines in memory and from a map file.
+ *
+ * @author uwwfh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WorldConstructionBenchmark {
+
+    /**
+     * The side length of the square map.
+     */
+    @Param({"64", "512", "2048", "8192"})
+    public int size;
+
+    /**
+     * The probability of a tile being black.
+     */
+    @Param({"0.0", "0.5"})
+    public double density;
+
+    private List<String> lines;
+    private Path file;
+
+    /**
+     * Generates the map, once for all iterations.
+     * @throws IOException if the map file could not be written.
+     */
+    @Setup
+    public void generate() throws IOException {
+        lines = BenchmarkMaps.generate(size, size, density);
+        file = BenchmarkMaps.generateFile(size, size, density);
+    }
+
+    /**
+     * Constructs a world from the lines of the map.
+     * @return The world.
+     */
+    @Benchmark
+    public World fromLines() {
+        return new World(lines);
+    }
+
+    /**
+     * Loads a world from the map file.
+     * @return The world.
+     */
+    @Benchmark
+    public World fromFile() {
+        return World.load(file.toString(), WorldBackend.DENSE, TurmiteRule.LANGTON);
+    }
+}
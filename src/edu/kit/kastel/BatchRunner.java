@@ -0,0 +1,200 @@
+package edu.kit.kastel;
+
+import edu.kit.kastel.command.Session;
+import edu.kit.kastel.game.World;
+import edu.kit.kastel.game.TurmiteRule;
+import edu.kit.kastel.game.WorldBackend;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs one command script against many map files as independent simulations in a single process.
+ * The maps are given as a directory, whose files are all used, or as a glob pattern on file names, such as
+ * {@code maps/*.in}. Every map is simulated in its own {@link Session} on a bounded pool of worker threads,
+ * one per processor, and everything the session prints, errors included, is written to
+ * {@code <output directory>/<map name>.out}.
+ *
+ * @author uwwfh
+ */
+final class BatchRunner {
+
+    private static final int ARG_INDEX_MAPS = 0;
+    private static final int ARG_INDEX_SCRIPT = 1;
+    private static final int ARG_INDEX_OUTPUT = 2;
+    private static final int ARG_INDEX_BACKEND = 3;
+    private static final int ARG_INDEX_RULE = 4;
+    private static final int ARGUMENTS_REQUIRED = 3;
+    private static final String GLOB_CHARACTERS = "*?[{";
+    private static final String OUTPUT_SUFFIX = ".out";
+    private static final String ERROR_PREFIX = "Error, ";
+    private static final String ERROR_USAGE = ERROR_PREFIX
+            + "expected --batch <map directory or glob> <script> <output directory> [backend] [rule].";
+    private static final String ERROR_ACCESS = ERROR_PREFIX + "could not access the maps, script or output directory: %s";
+    private static final String ERROR_WRITE = ERROR_PREFIX + "could not write '%s'.";
+    private static final String ERROR_NO_MAPS = ERROR_PREFIX + "no map files found for '%s'.";
+    private static final String ERROR_SIMULATION = ERROR_PREFIX + "the simulation of '%s' failed: %s";
+    private static final String SUMMARY = "Simulated %d of %d maps.";
+
+    private final byte[] script;
+    private final Path outputDirectory;
+    private final WorldBackend backend;
+    private final TurmiteRule rule;
+
+    private BatchRunner(byte[] script, Path outputDirectory, WorldBackend backend, TurmiteRule rule) {
+        this.script = script;
+        this.outputDirectory = outputDirectory;
+        this.backend = backend;
+        this.rule = rule;
+    }
+
+    /**
+     * Runs the batch mode.
+     * @param args The arguments following the batch option: maps, script, output directory and optionally backend
+     *             and rule.
+     */
+    static void run(String[] args) {
+        if (args.length < ARGUMENTS_REQUIRED || args.length > ARG_INDEX_RULE + 1) {
+            System.err.println(ERROR_USAGE);
+            return;
+        }
+        Optional<WorldBackend> backend = Main.parseBackend(args, ARG_INDEX_BACKEND);
+        Optional<TurmiteRule> rule = Main.parseRule(args, ARG_INDEX_RULE);
+        if (backend.isEmpty() || rule.isEmpty()) {
+            return;
+        }
+        List<Path> maps;
+        byte[] script;
+        Path outputDirectory;
+        try {
+            maps = findMaps(args[ARG_INDEX_MAPS]);
+            script = Files.readAllBytes(Path.of(args[ARG_INDEX_SCRIPT]));
+            outputDirectory = Files.createDirectories(Path.of(args[ARG_INDEX_OUTPUT]));
+        } catch (IOException | InvalidPathException e) {
+            System.err.println(ERROR_ACCESS.formatted(e.getMessage()));
+            return;
+        }
+        if (maps.isEmpty()) {
+            System.err.println(ERROR_NO_MAPS.formatted(args[ARG_INDEX_MAPS]));
+            return;
+        }
+        int simulated = new BatchRunner(script, outputDirectory, backend.get(), rule.get()).runAll(maps);
+        System.out.println(SUMMARY.formatted(simulated, maps.size()));
+    }
+
+    /**
+     * Finds the map files given by a directory or a glob pattern on the file names of a directory.
+     * @param pattern The directory or glob pattern.
+     * @return The map files, sorted by path.
+     * @throws IOException if the directory could not be listed.
+     */
+    private static List<Path> findMaps(String pattern) throws IOException {
+        Path path = Path.of(pattern);
+        Path directory = path;
+        String glob = "*";
+        Path fileName = path.getFileName();
+        if (fileName != null && fileName.toString().chars().anyMatch(c -> GLOB_CHARACTERS.indexOf(c) >= 0)) {
+            directory = path.getParent() == null ? Path.of("") : path.getParent();
+            glob = fileName.toString();
+        }
+        List<Path> maps = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory.toAbsolutePath(), glob)) {
+            for (Path map : stream) {
+                if (Files.isRegularFile(map)) {
+                    maps.add(map);
+                }
+            }
+        }
+        maps.sort(null);
+        return maps;
+    }
+
+    /**
+     * Simulates all given maps on a pool of worker threads, each in its own session.
+     * @param maps The map files.
+     * @return The amount of maps whose output could be written completely.
+     */
+    private int runAll(List<Path> maps) {
+        ExecutorService pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        int simulated = 0;
+        try {
+            List<Future<Boolean>> results = new ArrayList<>(maps.size());
+            for (Path map : maps) {
+                results.add(pool.submit(() -> simulate(map)));
+            }
+            for (int i = 0; i < maps.size(); ++i) {
+                simulated += awaitResult(results.get(i), maps.get(i)) ? 1 : 0;
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return simulated;
+    }
+
+    /**
+     * Waits for the simulation of a map, reporting it if it failed.
+     * @param result The pending result of the simulation.
+     * @param map The map file.
+     * @return true if the output of the simulation was written completely, false if not.
+     */
+    private boolean awaitResult(Future<Boolean> result, Path map) {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            System.err.println(ERROR_SIMULATION.formatted(map, e.getCause()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    /**
+     * Simulates a single map on the calling thread, writing everything it prints to its output file.
+     * @param map The map file.
+     * @return true if the output was written completely, false if not.
+     */
+    private boolean simulate(Path map) {
+        Path output = outputDirectory.resolve(map.getFileName() + OUTPUT_SUFFIX);
+        boolean written;
+        // Regular output and errors share one stream, so they keep their order in the file.
+        try (PrintStream target = new PrintStream(new BufferedOutputStream(Files.newOutputStream(output)))) {
+            simulate(map, target);
+            written = !target.checkError();
+        } catch (IOException e) {
+            written = false;
+        }
+        if (!written) {
+            System.err.println(ERROR_WRITE.formatted(output));
+        }
+        return written;
+    }
+
+    /**
+     * Simulates a single map in a new session printing to the given stream.
+     * @param map The map file.
+     * @param target The stream for both regular output and errors.
+     */
+    private void simulate(Path map, PrintStream target) {
+        World world;
+        try {
+            world = World.load(map.toString(), backend, rule);
+        } catch (IllegalArgumentException e) {
+            target.println(ERROR_PREFIX + e.getMessage());
+            return;
+        }
+        new Session(world, target, target).run(new ByteArrayInputStream(script));
+    }
+}
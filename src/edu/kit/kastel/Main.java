@@ -1,9 +1,12 @@
 package edu.kit.kastel;
 
-import edu.kit.kastel.command.CommandHandler;
+import edu.kit.kastel.command.Session;
 import edu.kit.kastel.game.World;
+import edu.kit.kastel.game.TurmiteRule;
+import edu.kit.kastel.game.WorldBackend;
 
-import java.util.List;
+import java.util.Arrays;
+import java.util.Optional;
 
 /**
  * The main entry point of the program.
@@ -12,8 +15,12 @@
  */
 public final class Main {
 
-    private static CommandHandler commandHandler;
-    private static World world;
+    private static final int ARG_INDEX_BACKEND = 1;
+    private static final int ARG_INDEX_RULE = 2;
+    private static final String BATCH_OPTION = "--batch";
+    private static final String TRACE_OPTION = "--trace";
+    private static final String ERROR_PREFIX = "Error, ";
+    private static final String ERROR_UNKNOWN_BACKEND = ERROR_PREFIX + "unknown world backend '%s'.";
 
     private Main() { }
 
@@ -22,30 +29,66 @@ private Main() { }
      * @param args Command line arguments.
      */
     public static void main(final String[] args) {
-        // Given: args = {"<path>"} with |args| = 1
+        // Given: args = {"<path>"} with |args| = 1, optionally followed by the name of the world backend and the rule
+        if (args[0].equals(BATCH_OPTION)) {
+            BatchRunner.run(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args[0].equals(TRACE_OPTION)) {
+            TraceTool.run(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         final String filepath = args[0];
-        final List<String> fileContents = FileHelper.readAllLines(filepath);
-        world = new World(fileContents);
+        Optional<WorldBackend> backend = parseBackend(args, ARG_INDEX_BACKEND);
+        Optional<TurmiteRule> rule = parseRule(args, ARG_INDEX_RULE);
+        if (backend.isEmpty() || rule.isEmpty()) {
+            return;
+        }
+        World world;
+        try {
+            world = World.load(filepath, backend.get(), rule.get());
+        } catch (IllegalArgumentException e) {
+            System.err.println(ERROR_PREFIX + e.getMessage());
+            return;
+        }
 
-        CommandHandler.initialize();
-        commandHandler = new CommandHandler();
-        commandHandler.handleUserInput();
+        new Session(world, System.out, System.err).run(System.in);
     }
 
     /**
-     * Gets the current CommandHandler.
-     * @return The current CommandHandler.
+     * Parses the optional name of the world backend, printing an error if it is unknown.
+     * @param args Command line arguments.
+     * @param index The index of the name of the backend.
+     * @return The backend, the automatic choice if no name is given, or empty if the name is unknown.
      */
-    public static CommandHandler getCommandHandler() {
-        return commandHandler;
+    static Optional<WorldBackend> parseBackend(String[] args, int index) {
+        if (args.length <= index) {
+            return Optional.of(WorldBackend.AUTOMATIC);
+        }
+        Optional<WorldBackend> backend = WorldBackend.parse(args[index]);
+        if (backend.isEmpty()) {
+            System.err.println(ERROR_UNKNOWN_BACKEND.formatted(args[index]));
+        }
+        return backend;
     }
 
     /**
-     * Gets the current World.
-     * @return The current World.
+     * Parses the optional rule of the ants, a string of turns or a turmite state table, printing an error if it is
+     * invalid.
+     * @param args Command line arguments.
+     * @param index The index of the rule.
+     * @return The rule, Langton's ant if no rule is given, or empty if the rule is invalid.
      */
-    public static World getWorld() {
-        return world;
+    static Optional<TurmiteRule> parseRule(String[] args, int index) {
+        if (args.length <= index) {
+            return Optional.of(TurmiteRule.LANGTON);
+        }
+        try {
+            return Optional.of(TurmiteRule.parse(args[index]));
+        } catch (IllegalArgumentException e) {
+            System.err.println(ERROR_PREFIX + e.getMessage());
+            return Optional.empty();
+        }
     }
 
 }
@@ -0,0 +1,78 @@
+package edu.kit.kastel;
+
+import edu.kit.kastel.game.TraceReader;
+import edu.kit.kastel.game.worldbuilder.Coordinate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+
+/**
+ * Replays a trace recorded by the trace command offline, without simulating the world again.
+ * The positions of the ants are printed at every step that is a multiple of the given interval, one line per step
+ * holding the step and the positions of all ants in the order they move in, separated by spaces.
+ *
+ * @author uwwfh
+ */
+final class TraceTool {
+
+    private static final int ARG_INDEX_TRACE = 0;
+    private static final int ARG_INDEX_INTERVAL = 1;
+    private static final long DEFAULT_INTERVAL = 1;
+    private static final String SAMPLE_PREFIX = "%d:";
+    private static final char SEPARATOR = ' ';
+    private static final String ERROR_PREFIX = "Error, ";
+    private static final String ERROR_USAGE = ERROR_PREFIX + "expected --trace <trace file> [interval].";
+    private static final String ERROR_INTERVAL = ERROR_PREFIX + "the interval must be a positive integer.";
+    private static final String ERROR_READ = ERROR_PREFIX + "could not read the trace: %s";
+
+    private TraceTool() {
+    }
+
+    /**
+     * Runs the replay of a trace.
+     * @param args The arguments following the trace option: the trace file and optionally the interval.
+     */
+    static void run(String[] args) {
+        if (args.length <= ARG_INDEX_TRACE || args.length > ARG_INDEX_INTERVAL + 1) {
+            System.err.println(ERROR_USAGE);
+            return;
+        }
+        long interval;
+        try {
+            interval = args.length > ARG_INDEX_INTERVAL ? Long.parseLong(args[ARG_INDEX_INTERVAL]) : DEFAULT_INTERVAL;
+        } catch (NumberFormatException e) {
+            interval = 0;
+        }
+        if (interval <= 0) {
+            System.err.println(ERROR_INTERVAL);
+            return;
+        }
+        PrintStream out = new PrintStream(new BufferedOutputStream(System.out), false);
+        try (TraceReader reader = TraceReader.open(args[ARG_INDEX_TRACE])) {
+            reader.replay(interval, (step, xs, ys, directions) -> print(out, step, xs, ys));
+        } catch (IllegalArgumentException e) {
+            out.flush();
+            System.err.println(ERROR_PREFIX + e.getMessage());
+        } catch (IOException e) {
+            out.flush();
+            System.err.println(ERROR_READ.formatted(e.getMessage()));
+        }
+        out.flush();
+    }
+
+    /**
+     * Prints the positions of the ants at a step.
+     * @param out The stream to print to.
+     * @param step The step.
+     * @param xs The x positions of the ants.
+     * @param ys The y positions of the ants.
+     */
+    private static void print(PrintStream out, long step, int[] xs, int[] ys) {
+        StringBuilder line = new StringBuilder(SAMPLE_PREFIX.formatted(step));
+        for (int i = 0; i < xs.length; ++i) {
+            line.append(SEPARATOR).append(new Coordinate(xs[i], ys[i]));
+        }
+        out.println(line);
+    }
+}
@@ -15,10 +15,11 @@ interface Command {
     /**
      * Executes the command.
      *
-     * @param commandArguments the arguments of the command
+     * @param session the session to execute the command in
+     * @param commandArguments the arguments of the command, only valid during the execution as the array is reused
      * @return the result of the command
      */
-    CommandResult execute(String[] commandArguments);
+    CommandResult execute(Session session, String[] commandArguments);
     
     /**
      * Returns the number of required arguments that the command expects.
@@ -26,4 +27,13 @@ interface Command {
      * @return the number of required arguments.
      */
     int getFixedArgumentCount();
+
+    /**
+     * Returns the number of optional arguments that the command accepts after its required arguments.
+     *
+     * @return the number of optional arguments.
+     */
+    default int getOptionalArgumentCount() {
+        return 0;
+    }
 }
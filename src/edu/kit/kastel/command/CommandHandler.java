@@ -1,128 +1,193 @@
 package edu.kit.kastel.command;
 
-import java.util.Arrays;
-import java.util.HashMap;
+import edu.kit.kastel.metrics.LatencyHistogram;
+import edu.kit.kastel.metrics.SessionMetrics;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Scanner;
 
 /**
- * This class handles the user input and executes the commands.
+ * This class handles the user input and executes the commands within a session.
+ * Every session has its own handler, holding its own command registry.
+ * Input is read through a large buffer and split by a {@link CommandTokenizer}; the command is then looked up in
+ * a table of the known commands grouped by name length, comparing the name in place within the line.
+ * The time every command takes to execute is recorded in the latency histogram of the command, which the dispatch
+ * table holds next to it.
  *
  * @author Programmieren-Team
  * @author uwwfh
  */
-public final class CommandHandler {
+final class CommandHandler {
     
     /**
      * The prefix for any error messages.
      */
     private static final String ERROR_PREFIX = "Error, ";
-    private static final String COMMAND_HANDLER_NOT_INITIALIZED =
-            "%sthe CommandHandler has not yet been initialized. Call CommandHandler.initialize() first.".formatted(ERROR_PREFIX);
-    private static final String COMMAND_SEPARATOR_REGEX = " +";
+    private static final int INPUT_BUFFER_SIZE = 1 << 16;
     private static final String COMMAND_NOT_FOUND_FORMAT = "Command '%s' not found!";
     private static final String WRONG_ARGUMENTS_COUNT_FORMAT = "Wrong number of arguments for command '%s'! Expected %d but got %d.";
+    private static final String WRONG_ARGUMENTS_RANGE_FORMAT =
+            "Wrong number of arguments for command '%s'! Expected %d to %d but got %d.";
     private static final String MOVE_COMMAND_NAME = "move";
     private static final String PRINT_COMMAND_NAME = "print";
     private static final String POSITION_COMMAND_NAME = "position";
     private static final String FIELD_COMMAND_NAME = "field";
+    private static final String FIELDS_COMMAND_NAME = "fields";
     private static final String QUIT_COMMAND_NAME = "quit";
+    private static final String SAVE_COMMAND_NAME = "save";
+    private static final String LOAD_COMMAND_NAME = "load";
+    private static final String STATS_COMMAND_NAME = "stats";
+    private static final String POPULATION_COMMAND_NAME = "population";
+    private static final String VISITED_COMMAND_NAME = "visited";
+    private static final String REWIND_COMMAND_NAME = "rewind";
+    private static final String SEEK_COMMAND_NAME = "seek";
+    private static final String TRACE_COMMAND_NAME = "trace";
     private static final String INVALID_RESULT_TYPE_FORMAT = "Unexpected value: %s";
     
-    private static Map<String, Command> commands;
-    private static boolean running = false;
+    private final Map<String, Command> commands = new LinkedHashMap<>();
+    private final CommandTokenizer tokenizer = new CommandTokenizer();
+    private CommandEntry[][] commandsByNameLength;
 
     /**
-     * Creates a new CommandHandler.
-     */
-    public CommandHandler() {
-        // This is a precaution, this should not be needed.
-        if (commands == null) {
-            initialize();
-        }
-    }
-    
-    /**
-     * Initializes the CommandHandler. Must be executed before any calls can be made.
+     * Creates a new CommandHandler with its own command registry.
+     * @param metrics The metrics to add the latency histograms of the commands to.
      */
-    public static void initialize() {
-        commands = new HashMap<>();
+    CommandHandler(SessionMetrics metrics) {
         initCommands();
+        buildDispatchTable(metrics);
     }
     
     /**
-     * Starts the interaction with the user.
-     * CommandHandler must be initialized.
+     * Starts the interaction with the user, reading one command per line from the given input until it ends
+     * or a command quits the session. The output of the session is flushed whenever reading the next command
+     * would block, so a batch of commands that is already available is answered at once.
+     * @param session The session to execute the commands in.
+     * @param input The input to read the commands from.
      */
-    public void handleUserInput() {
-        if (commands == null) {
-            System.err.println(COMMAND_HANDLER_NOT_INITIALIZED);
-            return;
-        }
-        
-        running = true;
-        
-        try (Scanner scanner = new Scanner(System.in)) {
-            while (running && scanner.hasNextLine()) {
-                executeCommand(scanner.nextLine());
+    void handleUserInput(Session session, InputStream input) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input), INPUT_BUFFER_SIZE)) {
+            String line;
+            while (session.isRunning()) {
+                // Whatever was printed has to be visible before waiting for the next command.
+                if (!reader.ready()) {
+                    session.flush();
+                }
+                line = reader.readLine();
+                if (line == null) {
+                    break;
+                }
+                executeCommand(session, line);
             }
+        } catch (IOException e) {
+            // Like the end of the input, an unreadable input ends the session.
+            session.quit();
         }
     }
     
-    /**
-     * Quits the interaction with the user.
-     */
-    void quit() {
-        running = false;
-    }
-    
-    private void executeCommand(String commandWithArguments) {
-        // For debugging purposes, todo remove
-        //System.out.println("> " + commandWithArguments);
-        String[] splitCommand = commandWithArguments.trim().split(COMMAND_SEPARATOR_REGEX);
-        String commandName = splitCommand[0];
-        String[] commandArguments = Arrays.copyOfRange(splitCommand, 1, splitCommand.length);
-        
-        executeCommand(commandName, commandArguments);
-    }
-    
-    private void executeCommand(String commandName, String[] commandArguments) {
-        if (!commands.containsKey(commandName)) {
-            System.err.println(ERROR_PREFIX + COMMAND_NOT_FOUND_FORMAT.formatted(commandName));
+    private void executeCommand(Session session, String commandWithArguments) {
+        tokenizer.tokenize(commandWithArguments);
+        CommandEntry entry = findCommand();
+        if (entry == null) {
+            session.getErr().println(ERROR_PREFIX + COMMAND_NOT_FOUND_FORMAT.formatted(tokenizer.getName()));
             return;
         }
         
-        Command command = commands.get(commandName);
-        
-        if (command.getFixedArgumentCount() != commandArguments.length) {
-            System.err.println(ERROR_PREFIX + WRONG_ARGUMENTS_COUNT_FORMAT.formatted(commandName,
-                    command.getFixedArgumentCount(), commandArguments.length));
+        Command command = entry.command();
+        int argumentCount = tokenizer.getArgumentCount();
+        int maximumArgumentCount = command.getFixedArgumentCount() + command.getOptionalArgumentCount();
+        if (argumentCount < command.getFixedArgumentCount() || argumentCount > maximumArgumentCount) {
+            if (command.getOptionalArgumentCount() == 0) {
+                session.getErr().println(ERROR_PREFIX + WRONG_ARGUMENTS_COUNT_FORMAT.formatted(tokenizer.getName(),
+                        command.getFixedArgumentCount(), argumentCount));
+            } else {
+                session.getErr().println(ERROR_PREFIX + WRONG_ARGUMENTS_RANGE_FORMAT.formatted(tokenizer.getName(),
+                        command.getFixedArgumentCount(), maximumArgumentCount, argumentCount));
+            }
             return;
         }
         
-        CommandResult result = command.execute(commandArguments);
+        long start = System.nanoTime();
+        CommandResult result = command.execute(session, tokenizer.getArguments());
+        entry.latencies().record(System.nanoTime() - start);
+        printResult(session, result);
+    }
+
+    /**
+     * Prints the message of the result of a command, if it has one, to the stream matching its type.
+     * @param session The session the command was executed in.
+     * @param result The result of the command.
+     */
+    private static void printResult(Session session, CommandResult result) {
         String output = switch (result.getType()) {
             case SUCCESS -> result.getMessage();
             case FAILURE -> ERROR_PREFIX + result.getMessage();
         };
         if (output != null) {
             switch (result.getType()) {
-                case SUCCESS -> System.out.println(output);
-                case FAILURE -> System.err.println(output);
+                case SUCCESS -> session.getOut().println(output);
+                case FAILURE -> session.getErr().println(output);
                 default -> throw new IllegalStateException(INVALID_RESULT_TYPE_FORMAT.formatted(result.getType()));
             }
         }
     }
+
+    /**
+     * Finds the command named by the current line in the dispatch table, without copying the name out of the line.
+     * @return The entry of the command, or {@code null} if there is no command of that name.
+     */
+    private CommandEntry findCommand() {
+        int nameLength = tokenizer.getNameLength();
+        if (nameLength >= commandsByNameLength.length) {
+            return null;
+        }
+        for (CommandEntry entry : commandsByNameLength[nameLength]) {
+            if (tokenizer.nameEquals(entry.name())) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Builds the dispatch table from the known commands, grouping them by the length of their name.
+     * @param metrics The metrics to add the latency histograms of the commands to.
+     */
+    private void buildDispatchTable(SessionMetrics metrics) {
+        int longestName = commands.keySet().stream().mapToInt(String::length).max().orElse(0);
+        List<List<CommandEntry>> byLength = new ArrayList<>();
+        for (int length = 0; length <= longestName; ++length) {
+            byLength.add(new ArrayList<>());
+        }
+        commands.forEach((name, command) -> byLength.get(name.length())
+                .add(new CommandEntry(name, command, metrics.addCommand(name))));
+        commandsByNameLength = byLength.stream().map(entries -> entries.toArray(new CommandEntry[0]))
+                .toArray(CommandEntry[][]::new);
+    }
     
     /**
      * Initializes the commands.
      */
-    private static void initCommands() {
+    private void initCommands() {
         addCommand(MOVE_COMMAND_NAME, new MoveCommand());
         addCommand(PRINT_COMMAND_NAME, new PrintCommand());
         addCommand(POSITION_COMMAND_NAME, new PositionCommand());
         addCommand(FIELD_COMMAND_NAME, new FieldCommand());
+        addCommand(FIELDS_COMMAND_NAME, new FieldsCommand());
         addCommand(QUIT_COMMAND_NAME, new QuitCommand());
+        addCommand(SAVE_COMMAND_NAME, new SaveCommand());
+        addCommand(LOAD_COMMAND_NAME, new LoadCommand());
+        addCommand(STATS_COMMAND_NAME, new StatsCommand());
+        addCommand(POPULATION_COMMAND_NAME, new PopulationCommand());
+        addCommand(VISITED_COMMAND_NAME, new VisitedCommand());
+        addCommand(REWIND_COMMAND_NAME, new RewindCommand());
+        addCommand(SEEK_COMMAND_NAME, new SeekCommand());
+        addCommand(TRACE_COMMAND_NAME, new TraceCommand());
     }
     
     /**
@@ -131,8 +196,16 @@ private static void initCommands() {
      * @param commandName The command name
      * @param command The executioner
      */
-    private static void addCommand(String commandName, Command command) {
+    private void addCommand(String commandName, Command command) {
         commands.put(commandName, command);
     }
-    
+
+    /**
+     * A known command together with its name and latencies, as stored in the dispatch table.
+     * @param name The name of the command.
+     * @param command The command.
+     * @param latencies The latency histogram of the command.
+     */
+    private record CommandEntry(String name, Command command, LatencyHistogram latencies) {
+    }
 }
@@ -17,6 +17,11 @@
  * @author uwwfh
  */
 final class CommandResult {
+
+    /**
+     * The result of any successful command without a message. Results are immutable, so it is shared.
+     */
+    static final CommandResult EMPTY_SUCCESS = new CommandResult(CommandResultType.SUCCESS, null);
     
     private final String message;
     private final CommandResultType type;
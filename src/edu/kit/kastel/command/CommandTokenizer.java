@@ -0,0 +1,122 @@
+package edu.kit.kastel.command;
+
+import java.util.Arrays;
+
+/**
+ * Splits command lines into a command name and its arguments without regular expressions.
+ * A line is split exactly like {@code line.trim().split(" +")}: surrounding whitespace is dropped and the tokens
+ * are separated by runs of spaces, so a blank line consists of the single, empty command name.
+ * Only the token bounds are recorded; the name is matched in place and arguments are only copied out once a
+ * command asks for them, into arrays reused for every line with the same, small amount of arguments.
+ *
+ * @author uwwfh
+ */
+final class CommandTokenizer {
+
+    private static final int INITIAL_TOKEN_CAPACITY = 8;
+    private static final int REUSED_ARGUMENT_ARRAYS = 8;
+    private static final char SEPARATOR = ' ';
+
+    private final String[][] argumentArrays = new String[REUSED_ARGUMENT_ARRAYS][];
+    private String line = "";
+    private int[] tokenStarts = new int[INITIAL_TOKEN_CAPACITY];
+    private int[] tokenEnds = new int[INITIAL_TOKEN_CAPACITY];
+    private int tokenCount;
+
+    /**
+     * Splits the given line, replacing the tokens of the previous one.
+     * @param line The line to split.
+     */
+    void tokenize(String line) {
+        this.line = line;
+        int start = 0;
+        int end = line.length();
+        while (start < end && line.charAt(start) <= SEPARATOR) {
+            ++start;
+        }
+        while (end > start && line.charAt(end - 1) <= SEPARATOR) {
+            --end;
+        }
+        tokenCount = 0;
+        int tokenStart = start;
+        for (int i = start; i < end; ++i) {
+            if (line.charAt(i) == SEPARATOR) {
+                if (i > tokenStart) {
+                    addToken(tokenStart, i);
+                }
+                tokenStart = i + 1;
+            }
+        }
+        addToken(tokenStart, end);
+    }
+
+    /**
+     * Records the bounds of a token.
+     * @param start The index of the first character of the token.
+     * @param end The index after the last character of the token.
+     */
+    private void addToken(int start, int end) {
+        if (tokenCount == tokenStarts.length) {
+            tokenStarts = Arrays.copyOf(tokenStarts, tokenCount * 2);
+            tokenEnds = Arrays.copyOf(tokenEnds, tokenCount * 2);
+        }
+        tokenStarts[tokenCount] = start;
+        tokenEnds[tokenCount] = end;
+        ++tokenCount;
+    }
+
+    /**
+     * If the command name of the current line equals the given name, compared in place.
+     * @param name The name to compare with.
+     * @return true if the command name equals the given name, false if not.
+     */
+    boolean nameEquals(String name) {
+        return tokenEnds[0] - tokenStarts[0] == name.length() && line.startsWith(name, tokenStarts[0]);
+    }
+
+    /**
+     * Gets the length of the command name of the current line.
+     * @return The length of the command name.
+     */
+    int getNameLength() {
+        return tokenEnds[0] - tokenStarts[0];
+    }
+
+    /**
+     * Gets the command name of the current line as a new string.
+     * @return The command name.
+     */
+    String getName() {
+        return line.substring(tokenStarts[0], tokenEnds[0]);
+    }
+
+    /**
+     * Gets the amount of arguments following the command name of the current line.
+     * @return The amount of arguments.
+     */
+    int getArgumentCount() {
+        return tokenCount - 1;
+    }
+
+    /**
+     * Gets the arguments of the current line. The returned array may be reused for the next line with the same
+     * amount of arguments, so it must not be kept beyond the execution of the command.
+     * @return The arguments.
+     */
+    String[] getArguments() {
+        int count = getArgumentCount();
+        String[] arguments;
+        if (count >= argumentArrays.length) {
+            arguments = new String[count];
+        } else {
+            if (argumentArrays[count] == null) {
+                argumentArrays[count] = new String[count];
+            }
+            arguments = argumentArrays[count];
+        }
+        for (int i = 0; i < count; ++i) {
+            arguments[i] = line.substring(tokenStarts[i + 1], tokenEnds[i + 1]);
+        }
+        return arguments;
+    }
+}
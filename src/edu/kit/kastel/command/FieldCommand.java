@@ -1,6 +1,5 @@
 package edu.kit.kastel.command;
 
-import edu.kit.kastel.Main;
 import edu.kit.kastel.game.worldbuilder.Coordinate;
 
 import java.util.Optional;
@@ -16,13 +15,13 @@ final class FieldCommand implements Command {
     private static final String ERROR_INVALID_COORD = "the coordinate given was invalid, expected format is \"x,y\", but was \"%s\"";
 
     @Override
-    public CommandResult execute(String[] commandArguments) {
+    public CommandResult execute(Session session, String[] commandArguments) {
         Optional<Coordinate> coordinate = Coordinate.parseCoordinate(commandArguments[0]);
         if (coordinate.isEmpty()) {
             return new CommandResult(CommandResultType.FAILURE, ERROR_INVALID_COORD.formatted(commandArguments[0]));
         }
-        System.out.println(Main.getWorld().asCharacter(coordinate.get()));
-        return new CommandResult(CommandResultType.SUCCESS, null);
+        session.getOut().println(session.getWorld().asCharacter(coordinate.get()));
+        return CommandResult.EMPTY_SUCCESS;
     }
     
     @Override
@@ -0,0 +1,104 @@
+package edu.kit.kastel.command;
+
+import edu.kit.kastel.game.worldbuilder.Coordinate;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This command prints the symbol representations of many fields, one per line in the order they were given,
+ * like a field command for each of them. The fields are either given as coordinates or as "--file path" naming
+ * a file with one coordinate per line, blank lines being ignored. All fields are resolved against the world in
+ * a single pass, and nothing is printed if any of the coordinates is invalid.
+ *
+ * @author uwwfh
+ */
+final class FieldsCommand implements Command {
+
+    private static final int ARGUMENTS_REQUIRED = 0;
+    private static final int ARGUMENTS_OPTIONAL = Integer.MAX_VALUE;
+    private static final int ARG_INDEX_OPTION = 0;
+    private static final int ARG_INDEX_PATH = 1;
+    private static final int FILE_ARGUMENTS = 2;
+    private static final int ANSWERS_PER_CHUNK = 1 << 14;
+    private static final String FILE_OPTION = "--file";
+    private static final String ERROR_NO_FIELDS = "expected at least one coordinate or \"--file path\".";
+    private static final String ERROR_FILE_ARGUMENTS = "expected exactly one path after \"--file\".";
+    private static final String ERROR_READ_FAILED = "the coordinate file '%s' could not be read.";
+    private static final String ERROR_INVALID_COORD = "the coordinate given was invalid, expected format is \"x,y\", but was \"%s\"";
+
+    @Override
+    public CommandResult execute(Session session, String[] commandArguments) {
+        if (commandArguments.length == 0) {
+            return new CommandResult(CommandResultType.FAILURE, ERROR_NO_FIELDS);
+        }
+        List<String> coordinates;
+        if (commandArguments[ARG_INDEX_OPTION].equals(FILE_OPTION)) {
+            if (commandArguments.length != FILE_ARGUMENTS) {
+                return new CommandResult(CommandResultType.FAILURE, ERROR_FILE_ARGUMENTS);
+            }
+            try {
+                coordinates = Files.readAllLines(Path.of(commandArguments[ARG_INDEX_PATH])).stream()
+                        .map(String::trim).filter(line -> !line.isEmpty()).toList();
+            } catch (IOException | InvalidPathException e) {
+                return new CommandResult(CommandResultType.FAILURE, ERROR_READ_FAILED.formatted(commandArguments[ARG_INDEX_PATH]));
+            }
+        } else {
+            coordinates = Arrays.asList(commandArguments);
+        }
+        return printFields(session, coordinates);
+    }
+
+    /**
+     * Parses the given coordinates and prints the characters of their fields.
+     * @param session The session whose world to look the fields up in.
+     * @param coordinates The coordinates.
+     * @return The result of the command.
+     */
+    private static CommandResult printFields(Session session, List<String> coordinates) {
+        int[] xs = new int[coordinates.size()];
+        int[] ys = new int[coordinates.size()];
+        for (int i = 0; i < xs.length; ++i) {
+            long coordinate = Coordinate.parsePacked(coordinates.get(i));
+            if (coordinate == Coordinate.INVALID_PACKED) {
+                return new CommandResult(CommandResultType.FAILURE, ERROR_INVALID_COORD.formatted(coordinates.get(i)));
+            }
+            xs[i] = Coordinate.packedX(coordinate);
+            ys[i] = Coordinate.packedY(coordinate);
+        }
+        printAnswers(session.getOut(), session.getWorld().asCharacters(xs, ys));
+        return CommandResult.EMPTY_SUCCESS;
+    }
+
+    /**
+     * Prints the given characters, one per line, in chunks.
+     * @param out The stream to print to.
+     * @param answers The characters.
+     */
+    private static void printAnswers(PrintStream out, char[] answers) {
+        String separator = System.lineSeparator();
+        StringBuilder chunk = new StringBuilder(Math.min(answers.length, ANSWERS_PER_CHUNK) * (1 + separator.length()));
+        for (int i = 0; i < answers.length; ++i) {
+            chunk.append(answers[i]).append(separator);
+            if ((i + 1) % ANSWERS_PER_CHUNK == 0 || i == answers.length - 1) {
+                out.print(chunk);
+                chunk.setLength(0);
+            }
+        }
+    }
+
+    @Override
+    public int getFixedArgumentCount() {
+        return ARGUMENTS_REQUIRED;
+    }
+
+    @Override
+    public int getOptionalArgumentCount() {
+        return ARGUMENTS_OPTIONAL;
+    }
+}
@@ -0,0 +1,33 @@
+package edu.kit.kastel.command;
+
+import edu.kit.kastel.game.World;
+
+/**
+ * This command replaces the current world with one restored from a binary snapshot.
+ * The restored world keeps the storage backend and the rule of the current one.
+ *
+ * @author uwwfh
+ */
+final class LoadCommand implements Command {
+
+    private static final int ARGUMENTS_REQUIRED = 1;
+    private static final int ARG_INDEX_PATH = 0;
+
+    @Override
+    public CommandResult execute(Session session, String[] commandArguments) {
+        World current = session.getWorld();
+        World world;
+        try {
+            world = World.loadSnapshot(commandArguments[ARG_INDEX_PATH], current.getBackend(), current.getRule());
+        } catch (IllegalArgumentException e) {
+            return new CommandResult(CommandResultType.FAILURE, e.getMessage());
+        }
+        session.setWorld(world);
+        return CommandResult.EMPTY_SUCCESS;
+    }
+
+    @Override
+    public int getFixedArgumentCount() {
+        return ARGUMENTS_REQUIRED;
+    }
+}
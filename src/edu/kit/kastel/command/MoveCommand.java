@@ -1,10 +1,14 @@
 package edu.kit.kastel.command;
 
-import edu.kit.kastel.Main;
+import edu.kit.kastel.game.Ant;
+import edu.kit.kastel.game.TraceWriter;
+import edu.kit.kastel.game.World;
 
 /**
- * This command performs a given number of moves on the current playing field.
- * If the ant is outside the playing area after any move, the game ends immediately.
+ * This command performs a given number of moves on the current playing field, in each of which every ant
+ * inside the playing area moves once. Once every ant is outside the playing area, the last positions of the ants
+ * inside it are printed and the game ends immediately. While a trace is recorded, every move of the ants is
+ * recorded to it, see {@link TraceCommand}.
  *
  * @author uwwfh
  */
@@ -16,10 +20,10 @@ final class MoveCommand implements Command {
     private static final String ERROR_INVALID_ARG = "the amount of moves must be a non-negative integer.";
 
     @Override
-    public CommandResult execute(String[] commandArguments) {
-        int moves;
+    public CommandResult execute(Session session, String[] commandArguments) {
+        long moves;
         try {
-            moves = Integer.parseInt(commandArguments[ARG_INDEX_MOVES]);
+            moves = Long.parseLong(commandArguments[ARG_INDEX_MOVES]);
         } catch (NumberFormatException e) {
             return new CommandResult(CommandResultType.FAILURE, ERROR_INVALID_ARG);
         }
@@ -27,16 +31,33 @@ public CommandResult execute(String[] commandArguments) {
             return new CommandResult(CommandResultType.FAILURE, ERROR_INVALID_ARG);
         }
 
-        for (int i = 0; i < moves; ++i) {
-            String lastLocationString = Main.getWorld().getAnt().getLocation().toString();
-            Main.getWorld().getAnt().move();
-            if (Main.getWorld().isAntOutOfBounds()) {
-                System.out.println(lastLocationString);
-                Main.getCommandHandler().quit();
-                break;
+        World world = session.getWorld();
+        TraceWriter trace = session.getTrace();
+        long flipsBefore = world.getTally().getTilesFlipped();
+        long start = System.nanoTime();
+        long performed = trace == null ? world.advance(moves) : world.getTimeline().advance(moves, trace);
+        long nanos = System.nanoTime() - start;
+        session.getMetrics().recordSimulation(performed, world.getTally().getTilesFlipped() - flipsBefore, nanos);
+        session.getMetrics().recordBlackTiles(world.getTally().getBlackTiles());
+        endIfAllAntsLeft(session);
+        if (trace != null && trace.hasFailed()) {
+            return TraceCommand.replaceTrace(session, null);
+        }
+        return CommandResult.EMPTY_SUCCESS;
+    }
+
+    /**
+     * Ends the game if every ant is outside the playing area, printing the last positions of the ants inside it.
+     * @param session The session.
+     */
+    static void endIfAllAntsLeft(Session session) {
+        World world = session.getWorld();
+        if (world.isAntOutOfBounds()) {
+            for (Ant ant : world.getAnts()) {
+                session.getOut().println(ant.getLastInBoundsLocation());
             }
+            session.quit();
         }
-        return new CommandResult(CommandResultType.SUCCESS, null);
     }
     
     @Override
@@ -0,0 +1,135 @@
+package edu.kit.kastel.command;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * Collects everything a session prints, regular output and errors alike, in one large buffer and only hands it to
+ * the actual streams when flushed or when the buffer is full, sparing them a write and a flush per printed line.
+ * The bytes of both streams share the buffer in the order they were printed: switching from one stream to the other
+ * first passes the buffered bytes on to their stream and flushes it, so the order of the two is preserved wherever
+ * they end up, for example on the same console.
+ *
+ * @author uwwfh
+ */
+final class OutputSink {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final PrintStream out;
+    private final PrintStream err;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private PrintStream pendingTarget;
+
+    /**
+     * Creates a new sink in front of the given streams.
+     * @param out The stream for regular output.
+     * @param err The stream for error messages.
+     */
+    OutputSink(PrintStream out, PrintStream err) {
+        this.out = new PrintStream(new Channel(out), false);
+        this.err = new PrintStream(new Channel(err), false);
+    }
+
+    /**
+     * Gets the buffered stream for regular output. Flushing it has no effect, only {@link #flush()} does.
+     * @return The stream for regular output.
+     */
+    PrintStream getOut() {
+        return out;
+    }
+
+    /**
+     * Gets the buffered stream for error messages. Flushing it has no effect, only {@link #flush()} does.
+     * @return The stream for error messages.
+     */
+    PrintStream getErr() {
+        return err;
+    }
+
+    /**
+     * Passes all buffered bytes on to their stream and flushes it.
+     */
+    void flush() {
+        drain();
+        if (pendingTarget != null) {
+            pendingTarget.flush();
+        }
+    }
+
+    /**
+     * Buffers the given bytes for the given stream.
+     * @param target The stream the bytes are meant for.
+     * @param bytes The bytes.
+     * @param offset The index of the first byte.
+     * @param length The amount of bytes.
+     */
+    private void write(PrintStream target, byte[] bytes, int offset, int length) {
+        if (target != pendingTarget) {
+            flush();
+            pendingTarget = target;
+        }
+        if (length > buffer.length - position) {
+            drain();
+            if (length >= buffer.length) {
+                target.write(bytes, offset, length);
+                return;
+            }
+        }
+        System.arraycopy(bytes, offset, buffer, position, length);
+        position += length;
+    }
+
+    /**
+     * Buffers a single byte for the given stream.
+     * @param target The stream the byte is meant for.
+     * @param b The byte.
+     */
+    private void write(PrintStream target, int b) {
+        if (target != pendingTarget) {
+            flush();
+            pendingTarget = target;
+        }
+        if (position == buffer.length) {
+            drain();
+        }
+        buffer[position++] = (byte) b;
+    }
+
+    /**
+     * Passes the buffered bytes on to their stream, without flushing it.
+     */
+    private void drain() {
+        if (position > 0) {
+            pendingTarget.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+    /**
+     * The entry of one of the streams into the shared buffer.
+     */
+    private final class Channel extends OutputStream {
+
+        private final PrintStream target;
+
+        /**
+         * Creates a new channel.
+         * @param target The stream the bytes written to the channel are meant for.
+         */
+        Channel(PrintStream target) {
+            this.target = target;
+        }
+
+        @Override
+        public void write(int b) {
+            OutputSink.this.write(target, b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            OutputSink.this.write(target, bytes, offset, length);
+        }
+    }
+}
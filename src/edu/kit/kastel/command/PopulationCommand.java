@@ -0,0 +1,61 @@
+package edu.kit.kastel.command;
+
+import edu.kit.kastel.game.TileTally;
+import edu.kit.kastel.game.worldbuilder.Coordinate;
+
+/**
+ * This command prints the amount of black tiles, either of the whole world or, given "row y" or "column x",
+ * of a single row or column. Tiles of any color but white count as black. The amounts are kept up to date while
+ * the ants move, so the command takes constant time.
+ *
+ * @author uwwfh
+ */
+final class PopulationCommand implements Command {
+
+    private static final int ARGUMENTS_REQUIRED = 0;
+    private static final int ARGUMENTS_OPTIONAL = 2;
+    private static final int ARG_INDEX_LINE = 0;
+    private static final int ARG_INDEX_POSITION = 1;
+    private static final String ROW = "row";
+    private static final String COLUMN = "column";
+    private static final String ERROR_ARGUMENTS = "expected no arguments, \"row y\" or \"column x\".";
+    private static final String ERROR_INVALID_POSITION = "the %s must be an integer, but was \"%s\".";
+    private static final String ERROR_OUTSIDE = "the %s %d is outside the world.";
+
+    @Override
+    public CommandResult execute(Session session, String[] commandArguments) {
+        TileTally tally = session.getWorld().getTally();
+        if (commandArguments.length == 0) {
+            session.getOut().println(tally.getBlackTiles());
+            return CommandResult.EMPTY_SUCCESS;
+        }
+        String line = commandArguments[ARG_INDEX_LINE];
+        if (commandArguments.length != ARGUMENTS_OPTIONAL || !line.equals(ROW) && !line.equals(COLUMN)) {
+            return new CommandResult(CommandResultType.FAILURE, ERROR_ARGUMENTS);
+        }
+        int position;
+        try {
+            position = Integer.parseInt(commandArguments[ARG_INDEX_POSITION]);
+        } catch (NumberFormatException e) {
+            return new CommandResult(CommandResultType.FAILURE,
+                    ERROR_INVALID_POSITION.formatted(line, commandArguments[ARG_INDEX_POSITION]));
+        }
+        boolean row = line.equals(ROW);
+        // Every world has a row 0 and a column 0, so the row or column lies in it if its first tile does.
+        if (!session.getWorld().contains(row ? new Coordinate(0, position) : new Coordinate(position, 0))) {
+            return new CommandResult(CommandResultType.FAILURE, ERROR_OUTSIDE.formatted(line, position));
+        }
+        session.getOut().println(row ? tally.getRowBlackTiles(position) : tally.getColumnBlackTiles(position));
+        return CommandResult.EMPTY_SUCCESS;
+    }
+
+    @Override
+    public int getFixedArgumentCount() {
+        return ARGUMENTS_REQUIRED;
+    }
+
+    @Override
+    public int getOptionalArgumentCount() {
+        return ARGUMENTS_OPTIONAL;
+    }
+}
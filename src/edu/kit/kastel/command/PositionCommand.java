@@ -1,9 +1,9 @@
 package edu.kit.kastel.command;
 
-import edu.kit.kastel.Main;
+import edu.kit.kastel.game.Ant;
 
 /**
- * This command prints the position of the ant.
+ * This command prints the position of every ant, one per line, in the order the ants move in.
  *
  * @author uwwfh
  */
@@ -12,9 +12,11 @@ final class PositionCommand implements Command {
     private static final int ARGUMENTS_REQUIRED = 0;
 
     @Override
-    public CommandResult execute(String[] commandArguments) {
-        System.out.println(Main.getWorld().getAnt().getLocation().toString());
-        return new CommandResult(CommandResultType.SUCCESS, null);
+    public CommandResult execute(Session session, String[] commandArguments) {
+        for (Ant ant : session.getWorld().getAnts()) {
+            session.getOut().println(ant.getLocation().toString());
+        }
+        return CommandResult.EMPTY_SUCCESS;
     }
     
     @Override
@@ -1,24 +1,105 @@
 package edu.kit.kastel.command;
 
-import edu.kit.kastel.Main;
+import edu.kit.kastel.game.World;
+import edu.kit.kastel.game.worldbuilder.Coordinate;
+
+import java.io.IOException;
+import java.util.Optional;
 
 /**
- * This command prints the entire world map, line by line.
+ * This command prints the world map, line by line.
+ * Without arguments the entire map is printed. Given the north-west and south-east corners as two coordinates,
+ * only the region between them is printed. Given "--scale k", a down-sampled overview is printed in which
+ * each character summarizes the density of black tiles of a block of k x k tiles, from 0 to 9.
  *
  * @author uwwfh
  */
 final class PrintCommand implements Command {
-    
+
     private static final int ARGUMENTS_REQUIRED = 0;
+    private static final int ARGUMENTS_OPTIONAL = 2;
+    private static final int ARG_INDEX_FROM = 0;
+    private static final int ARG_INDEX_TO = 1;
+    private static final String SCALE_OPTION = "--scale";
+    private static final String ERROR_PRINT_FAILED = "the world could not be printed.";
+    private static final String ERROR_ARGUMENT_COUNT = "expected either no arguments, two coordinates or \"--scale k\".";
+    private static final String ERROR_INVALID_SCALE = "the scale must be a positive integer, but was \"%s\".";
+    private static final String ERROR_INVALID_COORD = "the coordinate given was invalid, expected format is \"x,y\", but was \"%s\"";
+    private static final String ERROR_INVALID_REGION = "the region must lie inside the world, from its north-west to its "
+            + "south-east corner.";
 
     @Override
-    public CommandResult execute(String[] commandArguments) {
-        System.out.println(Main.getWorld().toString());
-        return new CommandResult(CommandResultType.SUCCESS, null);
+    public CommandResult execute(Session session, String[] commandArguments) {
+        if (commandArguments.length == 1) {
+            return new CommandResult(CommandResultType.FAILURE, ERROR_ARGUMENT_COUNT);
+        }
+        try {
+            if (commandArguments.length == 0) {
+                session.getWorld().print(session.getOut());
+            } else if (commandArguments[ARG_INDEX_FROM].equals(SCALE_OPTION)) {
+                return printOverview(session, commandArguments[ARG_INDEX_TO]);
+            } else {
+                return printRegion(session, commandArguments[ARG_INDEX_FROM], commandArguments[ARG_INDEX_TO]);
+            }
+        } catch (IOException e) {
+            return new CommandResult(CommandResultType.FAILURE, ERROR_PRINT_FAILED);
+        }
+        return CommandResult.EMPTY_SUCCESS;
+    }
+
+    /**
+     * Prints a down-sampled overview of the world.
+     * @param session The session whose world to print.
+     * @param scaleArgument The argument holding the side length of a block.
+     * @return The result of the command.
+     * @throws IOException if printing failed.
+     */
+    private static CommandResult printOverview(Session session, String scaleArgument) throws IOException {
+        int scale;
+        try {
+            scale = Integer.parseInt(scaleArgument);
+        } catch (NumberFormatException e) {
+            scale = 0;
+        }
+        if (scale <= 0) {
+            return new CommandResult(CommandResultType.FAILURE, ERROR_INVALID_SCALE.formatted(scaleArgument));
+        }
+        session.getWorld().printOverview(session.getOut(), scale);
+        return CommandResult.EMPTY_SUCCESS;
+    }
+
+    /**
+     * Prints the region of the world between the given corners.
+     * @param session The session whose world to print.
+     * @param fromArgument The argument holding the north-west corner.
+     * @param toArgument The argument holding the south-east corner.
+     * @return The result of the command.
+     * @throws IOException if printing failed.
+     */
+    private static CommandResult printRegion(Session session, String fromArgument, String toArgument) throws IOException {
+        World world = session.getWorld();
+        Optional<Coordinate> from = Coordinate.parseCoordinate(fromArgument);
+        if (from.isEmpty()) {
+            return new CommandResult(CommandResultType.FAILURE, ERROR_INVALID_COORD.formatted(fromArgument));
+        }
+        Optional<Coordinate> to = Coordinate.parseCoordinate(toArgument);
+        if (to.isEmpty()) {
+            return new CommandResult(CommandResultType.FAILURE, ERROR_INVALID_COORD.formatted(toArgument));
+        }
+        if (from.get().getX() > to.get().getX() || from.get().getY() > to.get().getY() || !world.contains(to.get())) {
+            return new CommandResult(CommandResultType.FAILURE, ERROR_INVALID_REGION);
+        }
+        world.print(session.getOut(), from.get(), to.get());
+        return CommandResult.EMPTY_SUCCESS;
     }
-    
+
     @Override
     public int getFixedArgumentCount() {
         return ARGUMENTS_REQUIRED;
     }
+
+    @Override
+    public int getOptionalArgumentCount() {
+        return ARGUMENTS_OPTIONAL;
+    }
 }
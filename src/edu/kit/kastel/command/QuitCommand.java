@@ -4,10 +4,8 @@
 
 package edu.kit.kastel.command;
 
-import edu.kit.kastel.Main;
-
 /**
- * This command quits a {@link CommandHandler command handler}.
+ * This command quits a {@link Session session}.
  *
  * @author Programmieren-Team
  * @author uwwfh
@@ -19,13 +17,14 @@ final class QuitCommand implements Command {
     /**
      * Executes the command.
      *
+     * @param session the session to execute the command in
      * @param ignored the arguments of the command, ignored
      * @return the result of the command
      */
     @Override
-    public CommandResult execute(String[] ignored) {
-        Main.getCommandHandler().quit();
-        return new CommandResult(CommandResultType.SUCCESS, null);
+    public CommandResult execute(Session session, String[] ignored) {
+        session.quit();
+        return CommandResult.EMPTY_SUCCESS;
     }
     
     @Override
@@ -0,0 +1,40 @@
+package edu.kit.kastel.command;
+
+/**
+ * This command undoes a given number of moves on the current playing field, see
+ * {@link edu.kit.kastel.game.Timeline#rewind(long)}. Only Langton's ant can be rewound.
+ *
+ * @author uwwfh
+ */
+final class RewindCommand implements Command {
+
+    private static final int ARGUMENTS_REQUIRED = 1;
+    private static final int ARG_INDEX_MOVES = 0;
+
+    private static final String ERROR_INVALID_ARG = "the amount of moves must be a non-negative integer.";
+
+    @Override
+    public CommandResult execute(Session session, String[] commandArguments) {
+        long moves;
+        try {
+            moves = Long.parseLong(commandArguments[ARG_INDEX_MOVES]);
+        } catch (NumberFormatException e) {
+            return new CommandResult(CommandResultType.FAILURE, ERROR_INVALID_ARG);
+        }
+        if (moves < 0) {
+            return new CommandResult(CommandResultType.FAILURE, ERROR_INVALID_ARG);
+        }
+
+        try {
+            session.getWorld().getTimeline().rewind(moves);
+        } catch (IllegalArgumentException e) {
+            return new CommandResult(CommandResultType.FAILURE, e.getMessage());
+        }
+        return CommandResult.EMPTY_SUCCESS;
+    }
+
+    @Override
+    public int getFixedArgumentCount() {
+        return ARGUMENTS_REQUIRED;
+    }
+}
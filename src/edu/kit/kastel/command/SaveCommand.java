@@ -0,0 +1,49 @@
+package edu.kit.kastel.command;
+
+import edu.kit.kastel.game.SnapshotCompression;
+
+import java.util.Optional;
+
+/**
+ * This command saves a binary snapshot of the current world to a file.
+ * The compression of the snapshot may be given as an optional second argument and defaults to deflate.
+ *
+ * @author uwwfh
+ */
+final class SaveCommand implements Command {
+
+    private static final int ARGUMENTS_REQUIRED = 1;
+    private static final int ARGUMENTS_OPTIONAL = 1;
+    private static final int ARG_INDEX_PATH = 0;
+    private static final int ARG_INDEX_COMPRESSION = 1;
+    private static final String ERROR_INVALID_COMPRESSION = "unknown compression '%s', expected none, rle or deflate.";
+
+    @Override
+    public CommandResult execute(Session session, String[] commandArguments) {
+        SnapshotCompression compression = SnapshotCompression.DEFLATE;
+        if (commandArguments.length > ARG_INDEX_COMPRESSION) {
+            Optional<SnapshotCompression> parsed = SnapshotCompression.parse(commandArguments[ARG_INDEX_COMPRESSION]);
+            if (parsed.isEmpty()) {
+                return new CommandResult(CommandResultType.FAILURE,
+                        ERROR_INVALID_COMPRESSION.formatted(commandArguments[ARG_INDEX_COMPRESSION]));
+            }
+            compression = parsed.get();
+        }
+        try {
+            session.getWorld().saveSnapshot(commandArguments[ARG_INDEX_PATH], compression);
+        } catch (IllegalArgumentException e) {
+            return new CommandResult(CommandResultType.FAILURE, e.getMessage());
+        }
+        return CommandResult.EMPTY_SUCCESS;
+    }
+
+    @Override
+    public int getFixedArgumentCount() {
+        return ARGUMENTS_REQUIRED;
+    }
+
+    @Override
+    public int getOptionalArgumentCount() {
+        return ARGUMENTS_OPTIONAL;
+    }
+}
@@ -0,0 +1,42 @@
+package edu.kit.kastel.command;
+
+/**
+ * This command travels to a given move of the current playing field, counted from the start of the map or
+ * snapshot, see {@link edu.kit.kastel.game.Timeline#seek(long)}. Later moves are performed like the move command
+ * does, so the game ends once every ant has left the playing area. Only Langton's ant can travel back.
+ *
+ * @author uwwfh
+ */
+final class SeekCommand implements Command {
+
+    private static final int ARGUMENTS_REQUIRED = 1;
+    private static final int ARG_INDEX_MOVE = 0;
+
+    private static final String ERROR_INVALID_ARG = "the move must be a non-negative integer.";
+
+    @Override
+    public CommandResult execute(Session session, String[] commandArguments) {
+        long move;
+        try {
+            move = Long.parseLong(commandArguments[ARG_INDEX_MOVE]);
+        } catch (NumberFormatException e) {
+            return new CommandResult(CommandResultType.FAILURE, ERROR_INVALID_ARG);
+        }
+        if (move < 0) {
+            return new CommandResult(CommandResultType.FAILURE, ERROR_INVALID_ARG);
+        }
+
+        try {
+            session.getWorld().getTimeline().seek(move);
+        } catch (IllegalArgumentException e) {
+            return new CommandResult(CommandResultType.FAILURE, e.getMessage());
+        }
+        MoveCommand.endIfAllAntsLeft(session);
+        return CommandResult.EMPTY_SUCCESS;
+    }
+
+    @Override
+    public int getFixedArgumentCount() {
+        return ARGUMENTS_REQUIRED;
+    }
+}
@@ -0,0 +1,157 @@
+package edu.kit.kastel.command;
+
+import edu.kit.kastel.game.TraceWriter;
+import edu.kit.kastel.game.World;
+import edu.kit.kastel.metrics.SessionMetrics;
+
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+
+/**
+ * A single simulation: its world, its own command registry, its run flag and the streams it prints to.
+ * Commands receive the session they are executed in, so any amount of sessions can run concurrently in one
+ * process, as long as every session is only used by one thread at a time.
+ * Everything the session prints is collected in an {@link OutputSink} and only reaches the given streams when the
+ * session waits for further input, when the buffer is full and when the session ends.
+ * While it runs, the metrics of the session are registered as an MBean if enabled, see {@link SessionMetrics}.
+ * A trace the moves are recorded to is closed when the session ends.
+ *
+ * @author uwwfh
+ */
+public final class Session {
+
+    private static final String ERROR_PREFIX = "Error, ";
+
+    private final CommandHandler commandHandler;
+    private final OutputSink sink;
+    private final SessionMetrics metrics = new SessionMetrics();
+    private World world;
+    private TraceWriter trace;
+    private boolean running;
+
+    /**
+     * Creates a new session.
+     * @param world The world to simulate.
+     * @param out The stream for regular output.
+     * @param err The stream for error messages.
+     */
+    public Session(World world, PrintStream out, PrintStream err) {
+        this.world = world;
+        this.sink = new OutputSink(out, err);
+        this.commandHandler = new CommandHandler(metrics);
+    }
+
+    /**
+     * Runs the session, reading one command per line from the given input until it ends or a command quits.
+     * @param input The input to read the commands from.
+     */
+    public void run(InputStream input) {
+        running = true;
+        metrics.register();
+        try {
+            commandHandler.handleUserInput(this, input);
+        } finally {
+            metrics.unregister();
+            stopTrace();
+            flush();
+        }
+    }
+
+    /**
+     * Gets the world of the session.
+     * @return The world.
+     */
+    public World getWorld() {
+        return world;
+    }
+
+    /**
+     * Gets the metrics of the session.
+     * @return The metrics.
+     */
+    SessionMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Replaces the world of the session, for example with one restored from a snapshot. A running trace stops, as
+     * it belongs to the replaced world.
+     * @param world The new world.
+     */
+    void setWorld(World world) {
+        stopTrace();
+        this.world = world;
+    }
+
+    /**
+     * Gets the trace the moves of the ants are recorded to.
+     * @return The trace, or null if the moves are not recorded.
+     */
+    TraceWriter getTrace() {
+        return trace;
+    }
+
+    /**
+     * Replaces the trace the moves of the ants are recorded to, closing the previous one.
+     * @param trace The new trace, or null to stop recording.
+     * @throws UncheckedIOException if the previous trace could not be written.
+     */
+    void setTrace(TraceWriter trace) {
+        TraceWriter previous = this.trace;
+        this.trace = trace;
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    /**
+     * Gets the stream for regular output.
+     * @return The output stream.
+     */
+    PrintStream getOut() {
+        return sink.getOut();
+    }
+
+    /**
+     * Gets the stream for error messages.
+     * @return The error stream.
+     */
+    PrintStream getErr() {
+        return sink.getErr();
+    }
+
+    /**
+     * Passes everything printed so far on to the streams given to the session.
+     */
+    void flush() {
+        sink.flush();
+    }
+
+    /**
+     * If the session is still running, i.e. no command quit it yet.
+     * @return true if the session is running, false if not.
+     */
+    boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stops recording the moves of the ants, reporting if the trace could not be written.
+     */
+    private void stopTrace() {
+        try {
+            setTrace(null);
+        } catch (UncheckedIOException e) {
+            getErr().println(ERROR_PREFIX + e.getMessage());
+        }
+    }
+
+    /**
+     * Quits the session after the current command.
+     */
+    void quit() {
+        running = false;
+        flush();
+    }
+}
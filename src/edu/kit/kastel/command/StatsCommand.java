@@ -0,0 +1,50 @@
+package edu.kit.kastel.command;
+
+import edu.kit.kastel.game.World;
+import edu.kit.kastel.metrics.SessionMetrics;
+
+import java.io.PrintStream;
+
+/**
+ * This command prints the metrics of the session: the steps performed and the rate they were performed at,
+ * the amount of tiles the moves flipped, the amount of black tiles and the box bounding every tile the ants have been
+ * on, and the latencies of every command executed so far, one per line.
+ * The amount of distinct tiles the ants have been on is not counted: the macro cell engine never sees the single
+ * tiles of a memoized run, and a set of visited tiles would take as much memory as the tiles themselves. The box
+ * bounding the visited tiles is printed instead.
+ *
+ * @author uwwfh
+ */
+final class StatsCommand implements Command {
+
+    private static final int ARGUMENTS_REQUIRED = 0;
+    private static final String STEPS_FORMAT = "steps: %d";
+    private static final String STEP_RATE_FORMAT = "step rate: %d steps/s";
+    private static final String TILES_FLIPPED_FORMAT = "tiles flipped: %d";
+    private static final String BLACK_TILES_FORMAT = "black tiles: %d";
+    private static final String VISITED_FORMAT = "visited: %s";
+
+    @Override
+    public CommandResult execute(Session session, String[] commandArguments) {
+        World world = session.getWorld();
+        SessionMetrics metrics = session.getMetrics();
+        long blackTiles = world.getTally().getBlackTiles();
+        metrics.recordBlackTiles(blackTiles);
+
+        PrintStream out = session.getOut();
+        out.println(STEPS_FORMAT.formatted(world.getStepCount()));
+        out.println(STEP_RATE_FORMAT.formatted(Math.round(metrics.getStepsPerSecond())));
+        out.println(TILES_FLIPPED_FORMAT.formatted(metrics.getTilesFlipped()));
+        out.println(BLACK_TILES_FORMAT.formatted(blackTiles));
+        out.println(VISITED_FORMAT.formatted(VisitedCommand.describe(world.getTally())));
+        for (String latency : metrics.describeCommandLatencies()) {
+            out.println(latency);
+        }
+        return CommandResult.EMPTY_SUCCESS;
+    }
+
+    @Override
+    public int getFixedArgumentCount() {
+        return ARGUMENTS_REQUIRED;
+    }
+}
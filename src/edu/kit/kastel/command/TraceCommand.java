@@ -0,0 +1,53 @@
+package edu.kit.kastel.command;
+
+import edu.kit.kastel.game.TraceWriter;
+
+import java.io.UncheckedIOException;
+
+/**
+ * This command starts recording the moves of the ants to a trace file, replacing any existing file, or stops the
+ * recording when given {@value #OFF}. While recording, the move command records every move of the ants.
+ * Traces are replayed offline with {@code --trace <file> [interval]}, see {@link edu.kit.kastel.game.TraceReader}.
+ *
+ * @author uwwfh
+ */
+final class TraceCommand implements Command {
+
+    private static final int ARGUMENTS_REQUIRED = 1;
+    private static final int ARG_INDEX_PATH = 0;
+    private static final String OFF = "off";
+
+    @Override
+    public CommandResult execute(Session session, String[] commandArguments) {
+        String path = commandArguments[ARG_INDEX_PATH];
+        TraceWriter trace = null;
+        if (!path.equals(OFF)) {
+            try {
+                trace = TraceWriter.create(session.getWorld(), path);
+            } catch (IllegalArgumentException e) {
+                return new CommandResult(CommandResultType.FAILURE, e.getMessage());
+            }
+        }
+        return replaceTrace(session, trace);
+    }
+
+    /**
+     * Replaces the trace of the session, closing the previous one.
+     * @param session The session.
+     * @param trace The new trace, or null to stop recording.
+     * @return The result, a failure if the previous trace could not be written.
+     */
+    static CommandResult replaceTrace(Session session, TraceWriter trace) {
+        try {
+            session.setTrace(trace);
+        } catch (UncheckedIOException e) {
+            return new CommandResult(CommandResultType.FAILURE, e.getMessage());
+        }
+        return CommandResult.EMPTY_SUCCESS;
+    }
+
+    @Override
+    public int getFixedArgumentCount() {
+        return ARGUMENTS_REQUIRED;
+    }
+}
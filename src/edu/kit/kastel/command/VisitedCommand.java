@@ -0,0 +1,42 @@
+package edu.kit.kastel.command;
+
+import edu.kit.kastel.game.TileTally;
+import edu.kit.kastel.game.worldbuilder.Coordinate;
+
+/**
+ * This command prints the north-west and south-east corner of the box bounding every tile an ant has been on
+ * since the world was created or loaded. The box is kept up to date while the ants move, so the command takes
+ * constant time.
+ *
+ * @author uwwfh
+ */
+final class VisitedCommand implements Command {
+
+    private static final int ARGUMENTS_REQUIRED = 0;
+    private static final String BOX_FORMAT = "%s %s";
+    private static final String NO_BOX = "none";
+
+    @Override
+    public CommandResult execute(Session session, String[] commandArguments) {
+        session.getOut().println(describe(session.getWorld().getTally()));
+        return CommandResult.EMPTY_SUCCESS;
+    }
+
+    @Override
+    public int getFixedArgumentCount() {
+        return ARGUMENTS_REQUIRED;
+    }
+
+    /**
+     * Describes the visited box of the given tally as its two corners.
+     * @param tally The tally.
+     * @return The corners of the box, or {@value #NO_BOX} if no tile was visited.
+     */
+    static String describe(TileTally tally) {
+        if (!tally.hasVisited()) {
+            return NO_BOX;
+        }
+        return BOX_FORMAT.formatted(new Coordinate(tally.getVisitedMinX(), tally.getVisitedMinY()),
+                new Coordinate(tally.getVisitedMaxX(), tally.getVisitedMaxY()));
+    }
+}
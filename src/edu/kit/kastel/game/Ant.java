@@ -2,17 +2,21 @@
 
 import edu.kit.kastel.game.worldbuilder.Coordinate;
 import edu.kit.kastel.game.worldbuilder.Direction;
-import edu.kit.kastel.game.worldbuilder.TileColor;
 
 /**
  * The ant player class.
+ * Position and direction are kept as primitives, so moving the ant never allocates.
  *
  * @author uwwfh
  */
 public class Ant {
 
-    private Direction direction;
-    private final Coordinate location;
+    private int x;
+    private int y;
+    private int direction;
+    private int ruleState;
+    private int lastInBoundsX;
+    private int lastInBoundsY;
     private final World world;
 
     /**
@@ -22,17 +26,46 @@ public class Ant {
      * @param direction The direction the ant is looking initially.
      */
     Ant(final World world, Coordinate location, Direction direction) {
-        this.direction = direction;
-        this.location = location.copy();
+        this.direction = direction.ordinal();
+        this.x = location.getX();
+        this.y = location.getY();
+        // An ant placed outside the world, as restored from a snapshot, has just left it from the closest tile.
+        this.lastInBoundsX = Math.max(0, Math.min(x, world.getWidth() - 1));
+        this.lastInBoundsY = Math.max(0, Math.min(y, world.getHeight() - 1));
         this.world = world;
     }
 
     /**
      * Gets the location of the ant in the world.
-     * @return The location of the ant.
+     * @return A new coordinate holding the location of the ant.
      */
     public Coordinate getLocation() {
-        return location;
+        return new Coordinate(x, y);
+    }
+
+    /**
+     * Gets the last location of the ant that was inside the world.
+     * This is only recorded when the ant actually leaves the world, before that it is the starting location.
+     * @return A new coordinate holding the last in-bounds location of the ant.
+     */
+    public Coordinate getLastInBoundsLocation() {
+        return new Coordinate(lastInBoundsX, lastInBoundsY);
+    }
+
+    /**
+     * Gets the x position of the ant.
+     * @return The x position.
+     */
+    int getX() {
+        return x;
+    }
+
+    /**
+     * Gets the y position of the ant.
+     * @return The y position.
+     */
+    int getY() {
+        return y;
     }
 
     /**
@@ -40,44 +73,79 @@ public Coordinate getLocation() {
      * @return The direction of the ant.
      */
     Direction getDirection() {
+        return Direction.fromOrdinal(direction);
+    }
+
+    /**
+     * Gets the ordinal of the direction of the ant.
+     * @return The direction ordinal.
+     */
+    int getDirectionOrdinal() {
         return direction;
     }
 
     /**
-     * Moves the Ant by 1 in the direction it's currently facing.
+     * Gets the state of the ant in the turmite rule of its world, always 0 for rules with a single state.
+     * @return The rule state.
      */
-    public void move() {
-        location.add(Direction.asCoordinate(direction));
-        makePostMoveAction();
+    int getRuleState() {
+        return ruleState;
     }
 
     /**
-     * Rotates the Ant clockwise by 90°.
+     * Sets the state of the ant in the turmite rule of its world, as computed by a simulation engine of the world.
+     * @param ruleState The new rule state.
      */
-    private void rotateClockwise() {
-        direction = Direction.clockwiseNext(direction);
+    void setRuleState(int ruleState) {
+        this.ruleState = ruleState;
     }
 
     /**
-     * Rotates the Ant counter-clockwise by 90°.
+     * Sets the position and direction of the ant, as computed by a simulation engine of the world.
+     * @param x The new x position.
+     * @param y The new y position.
+     * @param direction The new direction ordinal.
      */
-    private void rotateCounterClockwise() {
-        direction = Direction.counterClockwiseNext(direction);
+    void setState(int x, int y, int direction) {
+        this.x = x;
+        this.y = y;
+        this.direction = direction;
     }
 
     /**
-     * Performs the post-move action. After a move, if the current tile is white,
-     * rotates by 90° clockwise, otherwise 90° counter-clockwise. The color of the tile
-     * is switched to the opposite.
+     * Sets the last location of the ant that was inside the world, as restored from a checkpoint of the world.
+     * @param x The x position.
+     * @param y The y position.
      */
-    private void makePostMoveAction() {
-        if (world.getColor(location) == TileColor.WHITE) {
-            rotateClockwise();
-            world.setColor(location, TileColor.BLACK);
+    void setLastInBounds(int x, int y) {
+        this.lastInBoundsX = x;
+        this.lastInBoundsY = y;
+    }
+
+    /**
+     * Moves the Ant by 1 in the direction it's currently facing.
+     * After the move, the rule of the world determines from the color of the current tile and the state of the ant
+     * how the ant turns, which color the tile is painted with and which state the ant changes to. For Langton's ant,
+     * the ant rotates by 90° clockwise on white and counter-clockwise on black tiles, which are inverted.
+     * Tiles outside the world are always white and are never changed.
+     */
+    public void move() {
+        int previousX = x;
+        int previousY = y;
+        x += Direction.deltaX(direction);
+        y += Direction.deltaY(direction);
+        int transition;
+        if (world.isInside(x, y)) {
+            transition = world.applyRule(x, y, ruleState, direction);
         } else {
-            rotateCounterClockwise();
-            world.setColor(location, TileColor.WHITE);
+            if (world.isInside(previousX, previousY)) {
+                lastInBoundsX = previousX;
+                lastInBoundsY = previousY;
+            }
+            transition = world.getRule().transition(ruleState, TurmiteRule.WHITE, direction);
         }
+        direction = TurmiteRule.nextDirection(transition);
+        ruleState = TurmiteRule.nextState(transition);
     }
 
 }
@@ -0,0 +1,69 @@
+package edu.kit.kastel.game;
+
+import edu.kit.kastel.game.storage.BitGrid;
+import edu.kit.kastel.game.worldbuilder.Direction;
+
+/**
+ * The simulation engine for worlds stored in a dense {@link BitGrid}.
+ * Long runs are periodically probed for the highway of Langton's ant, which is then fast-forwarded
+ * by whole periods with the exact same result as stepping one move at a time.
+ *
+ * @author uwwfh
+ */
+final class BitGridEngine implements SimulationEngine {
+
+    private final BitGrid grid;
+    private final Ant ant;
+    private final HighwayAccelerator highway;
+    private final TileTally tally;
+
+    /**
+     * Creates a new engine.
+     * @param world The world to simulate.
+     * @param grid The grid holding the tiles of the world.
+     * @param ant The ant roaming the world.
+     */
+    BitGridEngine(World world, BitGrid grid, Ant ant) {
+        this.grid = grid;
+        this.ant = ant;
+        this.highway = new HighwayAccelerator(world, ant, 0, grid.getWidth(), grid.getHeight());
+        this.tally = world.getTally();
+    }
+
+    @Override
+    public long advance(long steps) {
+        return highway.advance(steps, this::walk);
+    }
+
+    /**
+     * Performs the given amount of steps one by one, stopping early if the ant leaves the world.
+     * The ant state is held in local primitives for the entire run and only written back once,
+     * so the inner loop touches nothing but the tile grid and the tally.
+     * @param steps The amount of steps to perform, must be non-negative.
+     * @return The amount of steps that were actually performed, including the one leaving the world.
+     */
+    private long walk(long steps) {
+        final BitGrid tiles = grid;
+        final TileTally counts = tally;
+        final int gridWidth = tiles.getWidth();
+        final int gridHeight = tiles.getHeight();
+        int x = ant.getX();
+        int y = ant.getY();
+        int direction = ant.getDirectionOrdinal();
+        long step = 0;
+        while (step < steps) {
+            int nextX = x + Direction.deltaX(direction);
+            int nextY = y + Direction.deltaY(direction);
+            if ((nextX | nextY) < 0 || nextX >= gridWidth || nextY >= gridHeight) {
+                break;
+            }
+            x = nextX;
+            y = nextY;
+            boolean black = tiles.flip(x, y);
+            counts.flip(x, y, black);
+            direction = black ? Direction.counterClockwiseNext(direction) : Direction.clockwiseNext(direction);
+            ++step;
+        }
+        return SimulationEngine.finishWalk(ant, x, y, direction, step, step < steps);
+    }
+}
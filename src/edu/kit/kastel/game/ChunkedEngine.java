@@ -0,0 +1,78 @@
+package edu.kit.kastel.game;
+
+import edu.kit.kastel.game.storage.ChunkedTileStore;
+import edu.kit.kastel.game.worldbuilder.Direction;
+
+/**
+ * The simulation engine for a single ant in an infinite world stored in a {@link ChunkedTileStore}.
+ * While the ant stays within a chunk, it works on the words of that chunk directly, so the chunk map is only
+ * consulted when the ant crosses into another chunk. Like on a dense grid, long runs are periodically probed
+ * for the highway, which is then fast-forwarded by whole periods.
+ *
+ * @author uwwfh
+ */
+final class ChunkedEngine implements SimulationEngine {
+
+    private final ChunkedTileStore store;
+    private final Ant ant;
+    private final HighwayAccelerator highway;
+    private final TileTally tally;
+
+    /**
+     * Creates a new engine.
+     * @param world The world to simulate.
+     * @param store The store holding the tiles of the world.
+     * @param ant The ant roaming the world.
+     */
+    ChunkedEngine(World world, ChunkedTileStore store, Ant ant) {
+        this.store = store;
+        this.ant = ant;
+        this.highway = new HighwayAccelerator(world, ant, ChunkedTileStore.MIN_POSITION,
+                ChunkedTileStore.LIMIT_POSITION, ChunkedTileStore.LIMIT_POSITION);
+        this.tally = world.getTally();
+    }
+
+    @Override
+    public long advance(long steps) {
+        return highway.advance(steps, this::walk);
+    }
+
+    /**
+     * Performs the given amount of steps one by one, stopping early if the ant reaches the edge of the store.
+     * The chunk the ant is in is held locally and only replaced when the ant enters another one. As the edges
+     * of the store are chunk edges, only leaving a chunk can leave the store.
+     * @param steps The amount of steps to perform, must be non-negative.
+     * @return The amount of steps that were actually performed, including the one leaving the store.
+     */
+    private long walk(long steps) {
+        int x = ant.getX();
+        int y = ant.getY();
+        int direction = ant.getDirectionOrdinal();
+        long[] words = null;
+        int chunkX = 0;
+        int chunkY = 0;
+        long step = 0;
+        while (step < steps) {
+            int nextX = x + Direction.deltaX(direction);
+            int nextY = y + Direction.deltaY(direction);
+            if (words == null || nextX >> ChunkedTileStore.CHUNK_SHIFT != chunkX || nextY >> ChunkedTileStore.CHUNK_SHIFT != chunkY) {
+                if (!store.contains(nextX, nextY)) {
+                    break;
+                }
+                chunkX = nextX >> ChunkedTileStore.CHUNK_SHIFT;
+                chunkY = nextY >> ChunkedTileStore.CHUNK_SHIFT;
+                words = store.getChunkWords(nextX, nextY);
+            }
+            x = nextX;
+            y = nextY;
+            long word = words[y & ChunkedTileStore.CHUNK_MASK];
+            // Shifting a long only uses the lowest six bits of x, so x doubles as the bit index.
+            words[y & ChunkedTileStore.CHUNK_MASK] = word ^ 1L << x;
+            boolean black = (word & 1L << x) != 0;
+            tally.flip(x, y, black);
+            direction = black ? Direction.counterClockwiseNext(direction) : Direction.clockwiseNext(direction);
+            ++step;
+        }
+        return SimulationEngine.finishWalk(ant, x, y, direction, step, step < steps);
+    }
+}
@@ -0,0 +1,170 @@
+package edu.kit.kastel.game;
+
+import edu.kit.kastel.game.storage.TileStore;
+import edu.kit.kastel.game.worldbuilder.Coordinate;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Resolves the characters of many fields of a world in one pass.
+ * The queries on the map of the world are sorted by their position in the tile store, row by row, so the store is
+ * walked front to back and every word of 64 tiles is fetched once for all queries that fall into it. The ants are
+ * then drawn over the answers. Queries off the map, which only an infinite world has tiles for, and the queries
+ * of worlds with more than two colors are answered one by one.
+ *
+ * @author uwwfh
+ */
+final class FieldLookup {
+
+    private static final char WHITE_CHARACTER = '0';
+    private static final char BLACK_CHARACTER = '1';
+    private static final int WORD_SHIFT = 6;
+    private static final int KEY_BITS = Long.SIZE - 1;
+
+    private final World world;
+    private final int[] xs;
+    private final int[] ys;
+    private final char[] characters;
+    private final int xBits;
+    private final int indexBits;
+    private final long indexMask;
+
+    /**
+     * Creates a new lookup.
+     * @param world The world to look the fields up in.
+     * @param xs The x positions of the fields.
+     * @param ys The y positions of the fields, as many as x positions.
+     */
+    private FieldLookup(World world, int[] xs, int[] ys) {
+        this.world = world;
+        this.xs = xs;
+        this.ys = ys;
+        this.characters = new char[xs.length];
+        // At least one word wide, so the upper bits of a position identify the word holding its tile.
+        this.xBits = Math.max(WORD_SHIFT, bitsFor(world.getWidth()));
+        this.indexBits = bitsFor(xs.length);
+        this.indexMask = (1L << indexBits) - 1;
+    }
+
+    /**
+     * Gets the characters of the given fields, in the order of the fields, exactly as
+     * {@link World#asCharacter(Coordinate)} would for each of them.
+     * @param world The world to look the fields up in.
+     * @param xs The x positions of the fields.
+     * @param ys The y positions of the fields, as many as x positions.
+     * @return The characters of the fields.
+     */
+    static char[] lookup(World world, int[] xs, int[] ys) {
+        FieldLookup lookup = new FieldLookup(world, xs, ys);
+        if (lookup.xBits + bitsFor(world.getHeight()) + lookup.indexBits > KEY_BITS
+                || world.getRule().getColorCount() > 2) {
+            // The keys would not fit into a long, which only happens for gigantic worlds and query counts,
+            // or the words of the tile store do not tell the colors apart.
+            lookup.lookupEach();
+        } else {
+            lookup.lookupSorted();
+        }
+        return lookup.characters;
+    }
+
+    /**
+     * Answers every query on its own.
+     */
+    private void lookupEach() {
+        for (int i = 0; i < xs.length; ++i) {
+            characters[i] = world.asCharacter(new Coordinate(xs[i], ys[i]));
+        }
+    }
+
+    /**
+     * Answers the queries on the map in the order of the tile store, then draws the ants over them.
+     */
+    private void lookupSorted() {
+        long[] keys = sortedKeys();
+        TileStore tiles = world.getTiles();
+        long xMask = (1L << xBits) - 1;
+        long currentWord = -1;
+        long word = 0;
+        for (long key : keys) {
+            long position = key >>> indexBits;
+            int x = (int) (position & xMask);
+            int y = (int) (position >>> xBits);
+            long wordKey = position >>> WORD_SHIFT;
+            if (wordKey != currentWord) {
+                currentWord = wordKey;
+                word = tiles.getWord(x >>> WORD_SHIFT << WORD_SHIFT, y);
+            }
+            characters[(int) (key & indexMask)] = (word >>> x & 1) != 0 ? BLACK_CHARACTER : WHITE_CHARACTER;
+        }
+        drawAnts(keys);
+    }
+
+    /**
+     * Builds the sorted keys of the queries on the map, each holding the position of the field in its upper
+     * and the index of the query in its lower bits. Queries off the map are answered right away.
+     * @return The sorted keys.
+     */
+    private long[] sortedKeys() {
+        long[] keys = new long[xs.length];
+        int onMap = 0;
+        for (int i = 0; i < xs.length; ++i) {
+            if (isOnMap(xs[i], ys[i])) {
+                keys[onMap++] = key(xs[i], ys[i]) << indexBits | i;
+            } else {
+                characters[i] = world.asCharacter(new Coordinate(xs[i], ys[i]));
+            }
+        }
+        keys = Arrays.copyOf(keys, onMap);
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    /**
+     * Draws the ants on the map over the answers of the queries on their tiles. The ants are drawn in the
+     * order they move in, so if several ants share a tile, the one moving last is shown.
+     * @param keys The sorted keys of the queries on the map.
+     */
+    private void drawAnts(long[] keys) {
+        List<Ant> ants = world.getAnts();
+        for (Ant ant : ants) {
+            if (!isOnMap(ant.getX(), ant.getY())) {
+                continue;
+            }
+            long position = key(ant.getX(), ant.getY());
+            int found = Arrays.binarySearch(keys, position << indexBits);
+            for (int i = found >= 0 ? found : -found - 1; i < keys.length && keys[i] >>> indexBits == position; ++i) {
+                characters[(int) (keys[i] & indexMask)] = world.antCharacter(ant);
+            }
+        }
+    }
+
+    /**
+     * If the given position lies on the map of the world, the rectangle of its width and height.
+     * @param x The x position.
+     * @param y The y position.
+     * @return true if the position is on the map, false if not.
+     */
+    private boolean isOnMap(int x, int y) {
+        return x >= 0 && x < world.getWidth() && y >= 0 && y < world.getHeight();
+    }
+
+    /**
+     * Gets the position of a field on the map in the key order, row by row.
+     * @param x The x position.
+     * @param y The y position.
+     * @return The position.
+     */
+    private long key(int x, int y) {
+        return (long) y << xBits | x;
+    }
+
+    /**
+     * Gets the amount of bits needed for the values from 0 to the given bound, exclusive.
+     * @param bound The bound, positive.
+     * @return The amount of bits.
+     */
+    private static int bitsFor(int bound) {
+        return Math.max(1, Integer.SIZE - Integer.numberOfLeadingZeros(bound - 1));
+    }
+}
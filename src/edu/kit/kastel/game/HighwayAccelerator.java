@@ -0,0 +1,275 @@
+package edu.kit.kastel.game;
+
+import edu.kit.kastel.game.storage.TileStore;
+import edu.kit.kastel.game.worldbuilder.Direction;
+
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Detects the periodic "highway" of Langton's ant and fast-forwards it by whole periods.
+ * Two consecutive periods are recorded while stepping normally. If the ant saw the same tile colors in
+ * both of them and faces its starting direction again, the second period is used as a template.
+ * Each following period is then applied in bulk, as long as the tiles it would visit still hold the colors
+ * the template started with. That is exactly the condition under which the naive stepper would repeat the
+ * period shifted by its displacement, so the results do not differ from stepping one move at a time.
+ *
+ * @author uwwfh
+ */
+final class HighwayAccelerator {
+
+    /**
+     * The length of the period of the highway of Langton's ant, in steps.
+     */
+    static final int PERIOD = 104;
+    private static final int RECORDED_STEPS = 2 * PERIOD;
+    private static final long PROBE_INTERVAL = 8192;
+
+    private final World world;
+    private final Ant ant;
+    private final TileStore tiles;
+    private final TileTally tally;
+    private final int minPosition;
+    private final int limitX;
+    private final int limitY;
+    private final boolean[] seenBlack = new boolean[RECORDED_STEPS];
+    private final int[] visitedX = new int[PERIOD];
+    private final int[] visitedY = new int[PERIOD];
+    private final int[] templateX = new int[PERIOD];
+    private final int[] templateY = new int[PERIOD];
+    private final boolean[] templateBefore = new boolean[PERIOD];
+    private final boolean[] templateAfter = new boolean[PERIOD];
+    private int templateSize;
+    private int templateFlips;
+    private int displacementX;
+    private int displacementY;
+
+    /**
+     * Creates a new accelerator for the given ant in the given world.
+     * @param world The world.
+     * @param ant The ant roaming the world.
+     * @param minPosition The smallest x and y position inside the world.
+     * @param limitX The exclusive upper bound of the x positions inside the world.
+     * @param limitY The exclusive upper bound of the y positions inside the world.
+     */
+    HighwayAccelerator(final World world, final Ant ant, int minPosition, int limitX, int limitY) {
+        this.world = world;
+        this.ant = ant;
+        this.tiles = world.getTiles();
+        this.tally = world.getTally();
+        this.minPosition = minPosition;
+        this.limitX = limitX;
+        this.limitY = limitY;
+    }
+
+    /**
+     * Advances the ant by the given amount of steps, stopping early if it leaves the world. The steps are walked
+     * one by one by the given walk of an engine, and every {@value #PROBE_INTERVAL} of them the highway is probed for.
+     * @param steps The amount of steps to perform, must be non-negative.
+     * @param walk The walk of the engine, performing at most the given amount of steps one by one and returning the
+     *             amount of steps that were actually performed, including the one leaving the world.
+     * @return The amount of steps that were actually performed, including the one leaving the world.
+     */
+    long advance(long steps, LongUnaryOperator walk) {
+        long performed = 0;
+        while (performed < steps && !world.isAntOutOfBounds()) {
+            performed += walk.applyAsLong(Math.min(PROBE_INTERVAL, steps - performed));
+            if (performed < steps && !world.isAntOutOfBounds()) {
+                performed += probe(steps - performed);
+            }
+        }
+        return performed;
+    }
+
+    /**
+     * Records two periods of moves and, if they repeat, fast-forwards the ant along its highway.
+     * Stops early if the ant leaves the world. If fewer steps than needed for a useful probe are available,
+     * nothing is done at all.
+     * @param steps The maximum amount of steps to perform.
+     * @return The amount of steps that were actually performed.
+     */
+    long probe(long steps) {
+        if (steps < RECORDED_STEPS + PERIOD) {
+            return 0;
+        }
+        int startDirection = ant.getDirectionOrdinal();
+        int periodStartX = 0;
+        int periodStartY = 0;
+        for (int i = 0; i < RECORDED_STEPS; ++i) {
+            if (i == PERIOD) {
+                periodStartX = ant.getX();
+                periodStartY = ant.getY();
+            }
+            if (!recordStep(i)) {
+                return i + 1L;
+            }
+        }
+        if (ant.getDirectionOrdinal() != startDirection || !isRepeating()) {
+            return RECORDED_STEPS;
+        }
+        displacementX = ant.getX() - periodStartX;
+        displacementY = ant.getY() - periodStartY;
+        if (displacementX == 0 && displacementY == 0) {
+            return RECORDED_STEPS;
+        }
+        buildTemplate();
+        return RECORDED_STEPS + fastForward((steps - RECORDED_STEPS) / PERIOD) * PERIOD;
+    }
+
+    /**
+     * Performs a single recorded move of the ant.
+     * @param index The index of the step within the recording.
+     * @return true if the ant is still inside the world, false if it left it.
+     */
+    private boolean recordStep(int index) {
+        int direction = ant.getDirectionOrdinal();
+        int nextX = ant.getX() + Direction.deltaX(direction);
+        int nextY = ant.getY() + Direction.deltaY(direction);
+        if (!world.isInside(nextX, nextY)) {
+            ant.move();
+            return false;
+        }
+        seenBlack[index] = tiles.get(nextX, nextY);
+        if (index >= PERIOD) {
+            visitedX[index - PERIOD] = nextX;
+            visitedY[index - PERIOD] = nextY;
+        }
+        ant.move();
+        return true;
+    }
+
+    /**
+     * If both recorded periods saw the same tile colors, meaning the ant made the same turns.
+     * @return true if the recorded periods repeat, false if not.
+     */
+    private boolean isRepeating() {
+        for (int i = 0; i < PERIOD; ++i) {
+            if (seenBlack[i] != seenBlack[i + PERIOD]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Builds the template from the second recorded period: every distinct visited tile together with its
+     * color before the period, i.e. at its first visit, and after the period, i.e. its current color.
+     */
+    private void buildTemplate() {
+        templateSize = 0;
+        templateFlips = 0;
+        for (int i = 0; i < PERIOD; ++i) {
+            if (indexOfTemplateTile(visitedX[i], visitedY[i]) < 0) {
+                templateX[templateSize] = visitedX[i];
+                templateY[templateSize] = visitedY[i];
+                templateBefore[templateSize] = seenBlack[i + PERIOD];
+                templateAfter[templateSize] = tiles.get(visitedX[i], visitedY[i]);
+                templateFlips += templateBefore[templateSize] != templateAfter[templateSize] ? 1 : 0;
+                ++templateSize;
+            }
+        }
+    }
+
+    /**
+     * Gets the index of the given tile within the template.
+     * @param x The x position of the tile.
+     * @param y The y position of the tile.
+     * @return The index of the tile or -1 if it is not part of the template.
+     */
+    private int indexOfTemplateTile(int x, int y) {
+        for (int i = 0; i < templateSize; ++i) {
+            if (templateX[i] == x && templateY[i] == y) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Applies the template period after period, until either the given amount of periods is reached,
+     * a period would leave the world or the tiles ahead no longer match the template.
+     * @param maxPeriods The maximum amount of periods to apply.
+     * @return The amount of periods applied.
+     */
+    private long fastForward(long maxPeriods) {
+        long limit = Math.min(maxPeriods, periodsInsideWorld());
+        int periods = 0;
+        while (periods < limit && matchesTemplate((periods + 1) * displacementX, (periods + 1) * displacementY)) {
+            ++periods;
+            applyTemplate(periods * displacementX, periods * displacementY);
+        }
+        ant.setState(ant.getX() + periods * displacementX, ant.getY() + periods * displacementY, ant.getDirectionOrdinal());
+        // Every move of a period flips a tile, but tiles flipped an even amount of times are only visited.
+        tally.addFlips((long) periods * (PERIOD - templateFlips));
+        return periods;
+    }
+
+    /**
+     * If the template tiles, shifted by the given offset, currently hold the colors the template started with.
+     * @param offsetX The x offset.
+     * @param offsetY The y offset.
+     * @return true if the shifted period would repeat the template exactly, false if not.
+     */
+    private boolean matchesTemplate(int offsetX, int offsetY) {
+        for (int i = 0; i < templateSize; ++i) {
+            if (tiles.get(templateX[i] + offsetX, templateY[i] + offsetY) != templateBefore[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes the colors the template ends with to the template tiles, shifted by the given offset.
+     * The tiles hold the colors the template starts with, so only those changing color are flipped,
+     * the others are just visited.
+     * @param offsetX The x offset.
+     * @param offsetY The y offset.
+     */
+    private void applyTemplate(int offsetX, int offsetY) {
+        for (int i = 0; i < templateSize; ++i) {
+            if (templateBefore[i] != templateAfter[i]) {
+                world.flip(templateX[i] + offsetX, templateY[i] + offsetY);
+            } else {
+                tally.visit(templateX[i] + offsetX, templateY[i] + offsetY);
+            }
+        }
+    }
+
+    /**
+     * Calculates how many periods the template can be shifted by its displacement without any of its tiles
+     * leaving the world.
+     * @return The amount of periods.
+     */
+    private long periodsInsideWorld() {
+        int minX = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        for (int i = 0; i < templateSize; ++i) {
+            minX = Math.min(minX, templateX[i]);
+            maxX = Math.max(maxX, templateX[i]);
+            minY = Math.min(minY, templateY[i]);
+            maxY = Math.max(maxY, templateY[i]);
+        }
+        return Math.min(periodsInsideAxis(minX, maxX, displacementX, limitX),
+                periodsInsideAxis(minY, maxY, displacementY, limitY));
+    }
+
+    /**
+     * Calculates how often a range can be shifted by the given delta while staying within the world on its axis.
+     * @param min The lower end of the range, inclusive.
+     * @param max The upper end of the range, inclusive.
+     * @param delta The delta per shift.
+     * @param limit The exclusive upper bound of the positions on the axis.
+     * @return The amount of shifts.
+     */
+    private long periodsInsideAxis(int min, int max, int delta, int limit) {
+        if (delta > 0) {
+            return (limit - 1L - max) / delta;
+        }
+        if (delta < 0) {
+            return ((long) min - minPosition) / -delta;
+        }
+        return Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,295 @@
+package edu.kit.kastel.game;
+
+import edu.kit.kastel.game.storage.LruCache;
+import edu.kit.kastel.game.storage.MacroCell;
+import edu.kit.kastel.game.storage.MacroCellStore;
+import edu.kit.kastel.game.worldbuilder.Direction;
+
+/**
+ * The simulation engine for worlds stored in a {@link MacroCellStore}.
+ * For every cell that lies entirely inside the world, the engine memoizes "the ant enters the cell at this
+ * position and direction, leaves it after k steps at that position and direction, and the cell then looks
+ * like this". Since cells are canonicalized, a repeated sub-configuration is simulated only once and every
+ * later visit skips straight to the memoized result. The memo is capped in size and evicts its least recently
+ * used results. Cells reaching over the border of the world are never memoized, so the ant still stops
+ * exactly when it leaves the world.
+ * Memoized results also hold the box bounding the tiles their run visited, so the engine can report the visited
+ * box of every advance to the tally of the world, along with the amount of black tiles of the new root cell.
+ *
+ * @author uwwfh
+ */
+final class MacroCellEngine implements SimulationEngine {
+
+    /**
+     * The default maximum amount of memoized results.
+     */
+    static final int DEFAULT_MEMO_CAPACITY = 1 << 20;
+    private static final int LEAF_MASK = MacroCell.LEAF_SIZE - 1;
+
+    private final MacroCellStore store;
+    private final Ant ant;
+    private final TileTally tally;
+    private final LruCache<MemoKey, MemoResult> memo;
+    private final long width;
+    private final long height;
+    private int antX;
+    private int antY;
+    private int direction;
+    private long remaining;
+    private int visitedMinX;
+    private int visitedMinY;
+    private int visitedMaxX;
+    private int visitedMaxY;
+
+    /**
+     * Creates a new engine.
+     * @param store The store holding the tiles of the world.
+     * @param ant The ant roaming the world.
+     * @param tally The tally of the tiles of the world.
+     * @param memoCapacity The maximum amount of memoized results.
+     */
+    MacroCellEngine(MacroCellStore store, Ant ant, TileTally tally, int memoCapacity) {
+        this.store = store;
+        this.ant = ant;
+        this.tally = tally;
+        this.memo = new LruCache<>(memoCapacity);
+        this.width = store.getWidth();
+        this.height = store.getHeight();
+    }
+
+    @Override
+    public long advance(long steps) {
+        if (!store.contains(ant.getX(), ant.getY())) {
+            return 0;
+        }
+        antX = ant.getX();
+        antY = ant.getY();
+        direction = ant.getDirectionOrdinal();
+        remaining = steps;
+        resetVisited();
+        store.setRoot(run(store.getRoot(), 0, 0));
+        long performed = steps - remaining;
+        if (performed > 0) {
+            tally.visit(visitedMinX, visitedMinY, visitedMaxX, visitedMaxY);
+            tally.addFlips(performed);
+        }
+        tally.replaceBlackTiles(store.getRoot().getPopulation());
+        return SimulationEngine.finishWalk(ant, antX, antY, direction, performed, remaining > 0);
+    }
+
+    /**
+     * Runs the ant inside the given cell until its next step would leave the cell or the world,
+     * or there are no remaining steps. The ant must be inside the cell, with its current tile already processed.
+     * @param cell The cell.
+     * @param originX The x position of the north-west corner of the cell.
+     * @param originY The y position of the north-west corner of the cell.
+     * @return The cell after the run.
+     */
+    private MacroCell run(MacroCell cell, int originX, int originY) {
+        long size = 1L << cell.getSizeShift();
+        if (remaining == 0 || originX + size > width || originY + size > height) {
+            return simulate(cell, originX, originY);
+        }
+        MemoKey key = new MemoKey(cell, antX - originX, antY - originY, direction);
+        MemoResult result = memo.get(key);
+        if (result != null && result.steps() <= remaining) {
+            antX = originX + result.x();
+            antY = originY + result.y();
+            direction = result.direction();
+            remaining -= result.steps();
+            if (result.steps() > 0) {
+                visit(originX + result.visited().minX(), originY + result.visited().minY());
+                visit(originX + result.visited().maxX(), originY + result.visited().maxY());
+            }
+            return result.cell();
+        }
+        return simulateAndMemoize(cell, originX, originY, key);
+    }
+
+    /**
+     * Runs the ant inside the given cell like {@link #run(MacroCell, int, int)} without consulting the memo,
+     * then memoizes the result if the ant is about to leave the cell.
+     * @param cell The cell.
+     * @param originX The x position of the north-west corner of the cell.
+     * @param originY The y position of the north-west corner of the cell.
+     * @param key The key to memoize the result under.
+     * @return The cell after the run.
+     */
+    private MacroCell simulateAndMemoize(MacroCell cell, int originX, int originY, MemoKey key) {
+        Box outer = new Box(visitedMinX, visitedMinY, visitedMaxX, visitedMaxY);
+        resetVisited();
+        long before = remaining;
+        MacroCell next = simulate(cell, originX, originY);
+        if (remaining > 0) {
+            Box visited = before == remaining ? null
+                    : new Box(visitedMinX - originX, visitedMinY - originY, visitedMaxX - originX, visitedMaxY - originY);
+            memo.put(key, new MemoResult(next, antX - originX, antY - originY, direction, before - remaining, visited));
+        }
+        visitedMinX = Math.min(visitedMinX, outer.minX());
+        visitedMinY = Math.min(visitedMinY, outer.minY());
+        visitedMaxX = Math.max(visitedMaxX, outer.maxX());
+        visitedMaxY = Math.max(visitedMaxY, outer.maxY());
+        return next;
+    }
+
+    /**
+     * Runs the ant inside the given cell, a leaf one step at a time and any other cell quadrant by quadrant.
+     * @param cell The cell.
+     * @param originX The x position of the north-west corner of the cell.
+     * @param originY The y position of the north-west corner of the cell.
+     * @return The cell after the run.
+     */
+    private MacroCell simulate(MacroCell cell, int originX, int originY) {
+        return cell.getLevel() == 0 ? runLeaf(cell, originX, originY) : runQuadrants(cell, originX, originY);
+    }
+
+    /**
+     * Extends the visited box to include the given position.
+     * @param x The x position.
+     * @param y The y position.
+     */
+    private void visit(int x, int y) {
+        visitedMinX = Math.min(visitedMinX, x);
+        visitedMinY = Math.min(visitedMinY, y);
+        visitedMaxX = Math.max(visitedMaxX, x);
+        visitedMaxY = Math.max(visitedMaxY, y);
+    }
+
+    /**
+     * Empties the visited box.
+     */
+    private void resetVisited() {
+        visitedMinX = Integer.MAX_VALUE;
+        visitedMinY = Integer.MAX_VALUE;
+        visitedMaxX = Integer.MIN_VALUE;
+        visitedMaxY = Integer.MIN_VALUE;
+    }
+
+    /**
+     * Runs the ant inside the given leaf, one step at a time.
+     * @param leaf The leaf.
+     * @param originX The x position of the north-west corner of the leaf.
+     * @param originY The y position of the north-west corner of the leaf.
+     * @return The leaf after the run.
+     */
+    private MacroCell runLeaf(MacroCell leaf, int originX, int originY) {
+        long bits = leaf.getBits();
+        int x = antX - originX;
+        int y = antY - originY;
+        int currentDirection = direction;
+        long left = remaining;
+        while (left > 0) {
+            int nextX = x + Direction.deltaX(currentDirection);
+            int nextY = y + Direction.deltaY(currentDirection);
+            if (((nextX | nextY) & ~LEAF_MASK) != 0 || (long) originX + nextX >= width || (long) originY + nextY >= height) {
+                break;
+            }
+            x = nextX;
+            y = nextY;
+            visit(originX + x, originY + y);
+            long mask = 1L << (y << MacroCell.LEAF_SHIFT | x);
+            boolean black = (bits & mask) != 0;
+            currentDirection = black ? Direction.counterClockwiseNext(currentDirection) : Direction.clockwiseNext(currentDirection);
+            bits ^= mask;
+            --left;
+        }
+        antX = originX + x;
+        antY = originY + y;
+        direction = currentDirection;
+        remaining = left;
+        return bits == leaf.getBits() ? leaf : store.leaf(bits);
+    }
+
+    /**
+     * Runs the ant inside the given cell by running it through its quadrants, one quadrant at a time.
+     * @param cell The cell, must not be a leaf.
+     * @param originX The x position of the north-west corner of the cell.
+     * @param originY The y position of the north-west corner of the cell.
+     * @return The cell after the run.
+     */
+    private MacroCell runQuadrants(MacroCell cell, int originX, int originY) {
+        int shift = cell.getSizeShift() - 1;
+        MacroCell[] quadrants = new MacroCell[MacroCell.QUADRANTS];
+        cell.copyQuadrants(quadrants);
+        while (remaining > 0) {
+            int index = quadrantIndex(antX - originX, antY - originY, shift);
+            int quadrantX = originX + ((index & 1) << shift);
+            int quadrantY = originY + ((index >>> 1) << shift);
+            quadrants[index] = run(quadrants[index], quadrantX, quadrantY);
+            if (remaining == 0 || !stepIntoQuadrant(quadrants, originX, originY, shift)) {
+                break;
+            }
+        }
+        return store.node(quadrants);
+    }
+
+    /**
+     * Performs the step of the ant from one quadrant of a cell into another one.
+     * @param quadrants The quadrants of the cell, the entered one is replaced.
+     * @param originX The x position of the north-west corner of the cell.
+     * @param originY The y position of the north-west corner of the cell.
+     * @param shift The binary logarithm of the side length of a quadrant.
+     * @return true if the step was performed, false if it would leave the cell or the world.
+     */
+    private boolean stepIntoQuadrant(MacroCell[] quadrants, int originX, int originY, int shift) {
+        int nextX = antX - originX + Direction.deltaX(direction);
+        int nextY = antY - originY + Direction.deltaY(direction);
+        if ((nextX | nextY) >>> (shift + 1) != 0 || (long) originX + nextX >= width || (long) originY + nextY >= height) {
+            return false;
+        }
+        int index = quadrantIndex(nextX, nextY, shift);
+        int mask = (1 << shift) - 1;
+        boolean black = MacroCellStore.isSet(quadrants[index], nextX & mask, nextY & mask);
+        quadrants[index] = store.with(quadrants[index], nextX & mask, nextY & mask, !black);
+        antX = originX + nextX;
+        antY = originY + nextY;
+        visit(antX, antY);
+        direction = black ? Direction.counterClockwiseNext(direction) : Direction.clockwiseNext(direction);
+        --remaining;
+        return true;
+    }
+
+    /**
+     * Gets the index of the quadrant containing the given position.
+     * @param x The x position, relative to the north-west corner of the cell.
+     * @param y The y position, relative to the north-west corner of the cell.
+     * @param shift The binary logarithm of the side length of a quadrant.
+     * @return The index of the quadrant.
+     */
+    private static int quadrantIndex(int x, int y, int shift) {
+        return (y >>> shift) << 1 | x >>> shift;
+    }
+
+    /**
+     * The state of the ant entering a cell.
+     * @param cell The cell.
+     * @param x The x position of the ant, relative to the north-west corner of the cell.
+     * @param y The y position of the ant, relative to the north-west corner of the cell.
+     * @param direction The direction ordinal of the ant.
+     */
+    private record MemoKey(MacroCell cell, int x, int y, int direction) {
+    }
+
+    /**
+     * The memoized result of the ant running through a cell until its next step would leave it.
+     * @param cell The cell after the run.
+     * @param x The x position of the ant after the run, relative to the north-west corner of the cell.
+     * @param y The y position of the ant after the run, relative to the north-west corner of the cell.
+     * @param direction The direction ordinal of the ant after the run.
+     * @param steps The amount of steps of the run.
+     * @param visited The box bounding the tiles visited in the run, relative to the north-west corner of the cell,
+     *                {@code null} if the run performed no steps.
+     */
+    private record MemoResult(MacroCell cell, int x, int y, int direction, long steps, Box visited) {
+    }
+
+    /**
+     * A box of tiles.
+     * @param minX The smallest x position, inclusive.
+     * @param minY The smallest y position, inclusive.
+     * @param maxX The largest x position, inclusive.
+     * @param maxY The largest y position, inclusive.
+     */
+    private record Box(int minX, int minY, int maxX, int maxY) {
+    }
+}
@@ -0,0 +1,316 @@
+package edu.kit.kastel.game;
+
+import edu.kit.kastel.game.storage.BitGrid;
+import edu.kit.kastel.game.storage.PackedColorGrid;
+import edu.kit.kastel.game.worldbuilder.Direction;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Loads a world file by memory-mapping it and scanning its bytes straight into a {@link BitGrid}.
+ * The size of the grid is derived from the length of the first line and the size of the file, so the file
+ * is read exactly once and no strings are created. Every line is validated to have the same width.
+ * Every direction character creates an ant, in the order they appear in the file.
+ * For rules other than Langton's ant, the tiles may have any color of the rule and are scanned into a
+ * {@link PackedColorGrid} instead, tile by tile.
+ * As all lines have the same width, the line a byte belongs to is known from its position alone. Large files are
+ * therefore split into slices of whole lines, which are scanned in parallel on the common fork-join pool, each into
+ * its own rows of the grid. Every row is held by words of its own, so the slices never share a word. The ants of
+ * the slices are merged in file order afterwards. If a slice is invalid, the whole file is scanned again in order,
+ * so the error reported is the first one in the file.
+ *
+ * @author uwwfh
+ */
+final class MappedWorldLoader {
+
+    private static final long MAX_MAPPING_SIZE = 1L << 30;
+    private static final long MIN_SLICE_SIZE = 1L << 20;
+    private static final int TASKS_PER_THREAD = 4;
+    private static final int WORD_MASK = Long.SIZE - 1;
+    private static final byte LINE_FEED = '\n';
+    private static final byte CARRIAGE_RETURN = '\r';
+    private static final String ERROR_EMPTY = "the world file is empty or starts with an empty line.";
+    private static final String ERROR_SIZE = "the world file does not consist of lines of width %d.";
+    private static final String ERROR_TOO_LARGE = "the world file has more than %d lines.".formatted(Integer.MAX_VALUE);
+    private static final String ERROR_WIDTH = "line %d has a width of %d, expected %d.";
+    private static final String ERROR_CHARACTER = "invalid character '%c' in line %d.";
+    private static final String ERROR_NO_ANT = "the world file does not contain an ant.";
+
+    private final FileChannel channel;
+    private final long size;
+    private final BitGrid grid;
+    private final PackedColorGrid colors;
+    private final int colorCount;
+    private final int width;
+    private final int height;
+    private final long lineLength;
+
+    private MappedWorldLoader(FileChannel channel, int width, int separatorLength, TurmiteRule rule) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+        this.width = width;
+        this.height = heightOf(size, width, separatorLength);
+        this.lineLength = (long) width + separatorLength;
+        this.grid = rule.isLangton() ? new BitGrid(width, height) : null;
+        this.colors = rule.isLangton() ? null : new PackedColorGrid(width, height, rule.getColorCount());
+        this.colorCount = rule.getColorCount();
+    }
+
+    /**
+     * Loads the world file at the given path.
+     * @param path The path of the world file.
+     * @param rule The rule the ants follow, which determines the colors the tiles may have.
+     * @return The parsed contents of the world.
+     * @throws IOException if the file could not be read.
+     * @throws IllegalArgumentException if the file is not a valid world.
+     */
+    static WorldLayout load(Path path, TurmiteRule rule) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), MAX_MAPPING_SIZE));
+            int width = 0;
+            while (width < buffer.limit() && buffer.get(width) != LINE_FEED && buffer.get(width) != CARRIAGE_RETURN) {
+                ++width;
+            }
+            if (width == 0) {
+                throw new IllegalArgumentException(ERROR_EMPTY);
+            }
+            boolean crLf = width + 1 < buffer.limit() && buffer.get(width) == CARRIAGE_RETURN && buffer.get(width + 1) == LINE_FEED;
+            return new MappedWorldLoader(channel, width, crLf ? 2 : 1, rule).loadSlices();
+        }
+    }
+
+    /**
+     * Calculates the amount of lines of a file consisting of lines of equal width.
+     * @param size The size of the file in bytes.
+     * @param width The width of the lines.
+     * @param separatorLength The length of the line separator, which is optional after the last line.
+     * @return The amount of lines.
+     * @throws IllegalArgumentException if the file size does not fit lines of the given width.
+     */
+    private static int heightOf(long size, int width, int separatorLength) {
+        long lineLength = (long) width + separatorLength;
+        long lines;
+        if (size % lineLength == 0) {
+            lines = size / lineLength;
+        } else if ((size + separatorLength) % lineLength == 0) {
+            lines = (size + separatorLength) / lineLength;
+        } else {
+            throw new IllegalArgumentException(ERROR_SIZE.formatted(width));
+        }
+        if (lines > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(ERROR_TOO_LARGE);
+        }
+        return (int) lines;
+    }
+
+    /**
+     * Scans the file slice by slice and merges the ants of the slices.
+     * @return The parsed contents of the world.
+     * @throws IOException if the file could not be read.
+     */
+    private WorldLayout loadSlices() throws IOException {
+        List<Slice> slices = split();
+        try {
+            scanAll(slices);
+        } catch (IllegalArgumentException e) {
+            // The slice reporting an error may have been misaligned by an earlier line, scanning in order tells.
+            Slice whole = new Slice(0, height, 0, size);
+            whole.scan();
+            slices = List.of(whole);
+        }
+        List<WorldLayout.AntPlacement> ants = new ArrayList<>();
+        for (Slice slice : slices) {
+            ants.addAll(slice.ants);
+        }
+        if (ants.isEmpty()) {
+            throw new IllegalArgumentException(ERROR_NO_ANT);
+        }
+        return new WorldLayout(grid != null ? grid : colors, List.copyOf(ants));
+    }
+
+    /**
+     * Splits the file into slices of whole lines, a few per thread of the common pool, but none smaller than
+     * {@value #MIN_SLICE_SIZE} bytes. Without a second thread, the file is a single slice.
+     * @return The slices, in file order.
+     */
+    private List<Slice> split() {
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        long count = parallelism > 1 ? Math.min(Math.min(height, size / MIN_SLICE_SIZE), (long) parallelism * TASKS_PER_THREAD) : 1;
+        count = Math.max(1, count);
+        List<Slice> slices = new ArrayList<>((int) count);
+        for (int i = 0; i < count; ++i) {
+            int fromRow = (int) (height * i / count);
+            int toRow = (int) (height * (i + 1) / count);
+            slices.add(new Slice(fromRow, toRow, fromRow * lineLength, i == count - 1 ? size : toRow * lineLength));
+        }
+        return slices;
+    }
+
+    /**
+     * Scans all slices, in parallel if there are several.
+     * @param slices The slices.
+     * @throws IOException if the file could not be read.
+     * @throws IllegalArgumentException if a slice is invalid.
+     */
+    private void scanAll(List<Slice> slices) throws IOException {
+        if (slices.size() == 1) {
+            slices.get(0).scan();
+            return;
+        }
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(slices.size());
+        for (Slice slice : slices) {
+            tasks.add(ForkJoinTask.adapt(slice::scanUnchecked));
+        }
+        try {
+            ForkJoinTask.invokeAll(tasks);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * A run of whole lines of the file, scanned into their own rows of the grid.
+     */
+    private final class Slice {
+
+        private final int toRow;
+        private final long start;
+        private final long end;
+        private final List<WorldLayout.AntPlacement> ants = new ArrayList<>();
+        private int x;
+        private int y;
+        private long word;
+        private boolean afterCarriageReturn;
+
+        /**
+         * Creates a new slice.
+         * @param fromRow The first line of the slice, inclusive.
+         * @param toRow The last line of the slice, exclusive.
+         * @param start The position of the first byte of the slice in the file.
+         * @param end The position after the last byte of the slice in the file.
+         */
+        Slice(int fromRow, int toRow, long start, long end) {
+            this.y = fromRow;
+            this.toRow = toRow;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * Scans the slice, mapping at most {@value #MAX_MAPPING_SIZE} bytes of it at a time.
+         * @throws IOException if the file could not be read.
+         * @throws IllegalArgumentException if the slice is invalid.
+         */
+        void scan() throws IOException {
+            for (long position = start; position < end; position += MAX_MAPPING_SIZE) {
+                scan(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(end - position, MAX_MAPPING_SIZE)));
+            }
+            finish();
+        }
+
+        /**
+         * Scans the slice on a thread of the pool, which cannot throw checked exceptions.
+         * @throws UncheckedIOException if the file could not be read.
+         * @throws IllegalArgumentException if the slice is invalid.
+         */
+        void scanUnchecked() {
+            try {
+                scan();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Scans all bytes of the given buffer.
+         * @param buffer The buffer.
+         */
+        private void scan(MappedByteBuffer buffer) {
+            int limit = buffer.limit();
+            for (int i = 0; i < limit; ++i) {
+                byte character = buffer.get(i);
+                if (character == LINE_FEED) {
+                    if (!afterCarriageReturn) {
+                        endLine();
+                    }
+                    afterCarriageReturn = false;
+                } else if (character == CARRIAGE_RETURN) {
+                    endLine();
+                    afterCarriageReturn = true;
+                } else {
+                    afterCarriageReturn = false;
+                    addTile(character);
+                }
+            }
+        }
+
+        /**
+         * Adds the tile represented by the given character at the current position.
+         * @param character The character.
+         */
+        private void addTile(byte character) {
+            if (y >= toRow) {
+                throw new IllegalArgumentException(ERROR_SIZE.formatted(width));
+            }
+            if (x >= width) {
+                throw new IllegalArgumentException(ERROR_WIDTH.formatted(y + 1, x + 1, width));
+            }
+            int color = TileCharacters.colorOf(character);
+            if (color >= 0 && color < colorCount) {
+                if (colors != null) {
+                    colors.setColor(x, y, color);
+                } else {
+                    word |= (long) color << x;
+                }
+            } else {
+                Optional<Direction> direction = Direction.parseAny((char) character);
+                if (direction.isEmpty()) {
+                    throw new IllegalArgumentException(ERROR_CHARACTER.formatted((char) character, y + 1));
+                }
+                ants.add(new WorldLayout.AntPlacement(x, y, direction.get()));
+            }
+            ++x;
+            if ((x & WORD_MASK) == 0 && grid != null) {
+                grid.setWord(x - Long.SIZE, y, word);
+                word = 0;
+            }
+        }
+
+        /**
+         * Ends the current line, validating its width.
+         */
+        private void endLine() {
+            if (x != width) {
+                throw new IllegalArgumentException(ERROR_WIDTH.formatted(y + 1, x, width));
+            }
+            if ((x & WORD_MASK) != 0 && grid != null) {
+                grid.setWord(x & ~WORD_MASK, y, word);
+                word = 0;
+            }
+            x = 0;
+            ++y;
+        }
+
+        /**
+         * Finishes the scan, validating that all lines of the slice were found.
+         */
+        private void finish() {
+            if (x > 0) {
+                endLine();
+            }
+            if (y != toRow) {
+                throw new IllegalArgumentException(ERROR_SIZE.formatted(width));
+            }
+        }
+    }
+}
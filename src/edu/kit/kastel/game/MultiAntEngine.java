@@ -0,0 +1,352 @@
+package edu.kit.kastel.game;
+
+import edu.kit.kastel.game.storage.BitGrid;
+import edu.kit.kastel.game.storage.TileStore;
+import edu.kit.kastel.game.worldbuilder.Direction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * The simulation engine for worlds with several ants.
+ * The defined order is sequential: in every step, each ant inside the world moves once, in the order of the list.
+ * Steps are performed in batches. Within a batch, an ant can only reach tiles up to the batch length away from
+ * its starting position, so ants whose reach can never touch the same 64-bit word of the grid are independent.
+ * The ants of a batch are partitioned into groups of possibly interacting ants, each group is stepped in the
+ * defined order on its own, and independent groups are stepped in parallel on the common fork-join pool.
+ * This gives exactly the result of the sequential order. Tile stores other than a {@link BitGrid} are not
+ * safe for concurrent use, their ants are always stepped as a single group.
+ * Every group logs the tiles it flips, and the logs are added to the tally of the world once the batch is done.
+ *
+ * @author uwwfh
+ */
+final class MultiAntEngine implements SimulationEngine {
+
+    /**
+     * The amount of steps per batch, which is also the reach of an ant within a batch.
+     */
+    static final int BATCH_STEPS = 32;
+    private static final int CLAIM_ROW_SHIFT = 4;
+    private static final int WORD_SHIFT = 6;
+    private static final int TASKS_PER_THREAD = 4;
+    private static final int LEFT = -1;
+
+    private final TileStore tiles;
+    private final TileTally tally;
+    private final List<Ant> ants;
+    private final boolean parallel;
+    private final int claimColumns;
+    private final int claimRows;
+    private int[] claimOwners;
+    private int[] claimEpochs;
+    private int epoch;
+
+    /**
+     * Creates a new engine.
+     * @param tiles The store holding the tiles of the world.
+     * @param ants The ants roaming the world, in the order they move in.
+     * @param tally The tally of the tiles of the world.
+     */
+    MultiAntEngine(TileStore tiles, List<Ant> ants, TileTally tally) {
+        this.tiles = tiles;
+        this.tally = tally;
+        this.ants = ants;
+        this.parallel = tiles instanceof BitGrid && ForkJoinPool.getCommonPoolParallelism() > 1;
+        this.claimColumns = (tiles.getWidth() - 1 >> WORD_SHIFT) + 1;
+        this.claimRows = (tiles.getHeight() - 1 >> CLAIM_ROW_SHIFT) + 1;
+    }
+
+    @Override
+    public long advance(long steps) {
+        long performed = 0;
+        while (performed < steps) {
+            int[] active = activeAnts();
+            if (active.length == 0) {
+                break;
+            }
+            int batch = (int) Math.min(BATCH_STEPS, steps - performed);
+            List<int[]> groups = parallel ? partition(active, batch) : List.of(active);
+            performed += runGroups(groups, batch);
+        }
+        return performed;
+    }
+
+    /**
+     * Gets the indices of all ants inside the world.
+     * @return The indices, in ascending order.
+     */
+    private int[] activeAnts() {
+        int[] active = new int[ants.size()];
+        int count = 0;
+        for (int i = 0; i < ants.size(); ++i) {
+            Ant ant = ants.get(i);
+            if (tiles.contains(ant.getX(), ant.getY())) {
+                active[count++] = i;
+            }
+        }
+        return count == active.length ? active : Arrays.copyOf(active, count);
+    }
+
+    /**
+     * Partitions the given ants into groups whose reach within a batch may overlap.
+     * The reach of every ant within the world is covered by claim cells of one word column and 16 rows each,
+     * and ants claiming the same cell are joined. This may join some ants that could not actually interact,
+     * but never separates two that could.
+     * @param active The indices of the ants, in ascending order.
+     * @param steps The length of the batch.
+     * @return The groups, each holding its ant indices in ascending order.
+     */
+    private List<int[]> partition(int[] active, int steps) {
+        int[] parent = new int[active.length];
+        nextEpoch();
+        for (int i = 0; i < active.length; ++i) {
+            parent[i] = i;
+            Ant ant = ants.get(active[i]);
+            int minColumn = Math.max(0, ant.getX() - steps) >> WORD_SHIFT;
+            int maxColumn = Math.min(claimColumns - 1, ant.getX() + steps >> WORD_SHIFT);
+            int minRow = Math.max(0, ant.getY() - steps) >> CLAIM_ROW_SHIFT;
+            int maxRow = Math.min(claimRows - 1, ant.getY() + steps >> CLAIM_ROW_SHIFT);
+            for (int row = minRow; row <= maxRow; ++row) {
+                for (int column = minColumn; column <= maxColumn; ++column) {
+                    int cell = row * claimColumns + column;
+                    if (claimEpochs[cell] == epoch) {
+                        union(parent, claimOwners[cell], i);
+                    } else {
+                        claimEpochs[cell] = epoch;
+                        claimOwners[cell] = i;
+                    }
+                }
+            }
+        }
+        return groupsOf(parent, active);
+    }
+
+    /**
+     * Starts a new partition, invalidating all claims of the previous one without clearing them.
+     */
+    private void nextEpoch() {
+        if (claimEpochs == null || epoch == Integer.MAX_VALUE) {
+            claimOwners = new int[claimColumns * claimRows];
+            claimEpochs = new int[claimColumns * claimRows];
+            epoch = 0;
+        }
+        ++epoch;
+    }
+
+    /**
+     * Collects the ants of each set into a group.
+     * @param parent The parent of every element, the elements being the positions in the given index array.
+     * @param active The indices of the ants, in ascending order.
+     * @return The groups, each holding its ant indices in ascending order, ordered by their first ant.
+     */
+    private static List<int[]> groupsOf(int[] parent, int[] active) {
+        Map<Integer, List<Integer>> members = new HashMap<>();
+        List<List<Integer>> groups = new ArrayList<>();
+        for (int i = 0; i < active.length; ++i) {
+            members.computeIfAbsent(find(parent, i), root -> {
+                List<Integer> group = new ArrayList<>();
+                groups.add(group);
+                return group;
+            }).add(active[i]);
+        }
+        List<int[]> result = new ArrayList<>(groups.size());
+        for (List<Integer> group : groups) {
+            result.add(group.stream().mapToInt(Integer::intValue).toArray());
+        }
+        return result;
+    }
+
+    /**
+     * Steps all groups through a batch, independent groups in parallel.
+     * @param groups The groups of ant indices.
+     * @param steps The length of the batch.
+     * @return The amount of steps performed, less than the batch length only if every ant left the world.
+     */
+    private int runGroups(List<int[]> groups, int steps) {
+        FlipLog[] logs = new FlipLog[groups.size()];
+        int tasks = Math.min(groups.size(), ForkJoinPool.getCommonPoolParallelism() * TASKS_PER_THREAD);
+        int performed = 0;
+        if (tasks <= 1) {
+            performed = runSlice(groups, logs, 0, groups.size(), steps);
+        } else {
+            List<ForkJoinTask<Integer>> slices = new ArrayList<>(tasks);
+            for (int task = 0; task < tasks; ++task) {
+                int from = (int) ((long) groups.size() * task / tasks);
+                int to = (int) ((long) groups.size() * (task + 1) / tasks);
+                slices.add(ForkJoinTask.adapt(() -> runSlice(groups, logs, from, to, steps)));
+            }
+            for (ForkJoinTask<Integer> slice : ForkJoinTask.invokeAll(slices)) {
+                performed = Math.max(performed, slice.join());
+            }
+        }
+        for (FlipLog log : logs) {
+            log.addTo(tally);
+        }
+        return performed;
+    }
+
+    /**
+     * Steps a slice of the groups through a batch, one group after another.
+     * @param groups The groups of ant indices.
+     * @param logs The logs of the flipped tiles of the groups, filled in for the groups of the slice.
+     * @param from The index of the first group of the slice, inclusive.
+     * @param to The index of the last group of the slice, exclusive.
+     * @param steps The length of the batch.
+     * @return The amount of steps performed, less than the batch length only if all ants of the slice left the world.
+     */
+    private int runSlice(List<int[]> groups, FlipLog[] logs, int from, int to, int steps) {
+        int performed = 0;
+        for (int i = from; i < to; ++i) {
+            logs[i] = new FlipLog(groups.get(i).length * steps);
+            performed = Math.max(performed, run(groups.get(i), logs[i], steps));
+        }
+        return performed;
+    }
+
+    /**
+     * Steps a group of ants through a batch in the defined order, stopping early once all of them left the world.
+     * @param group The ant indices of the group, in ascending order.
+     * @param log The log to add the flipped tiles to.
+     * @param steps The length of the batch.
+     * @return The amount of steps performed, including the one the last ant left the world in.
+     */
+    private int run(int[] group, FlipLog log, int steps) {
+        int[] xs = new int[group.length];
+        int[] ys = new int[group.length];
+        int[] directions = new int[group.length];
+        for (int i = 0; i < group.length; ++i) {
+            Ant ant = ants.get(group[i]);
+            xs[i] = ant.getX();
+            ys[i] = ant.getY();
+            directions[i] = ant.getDirectionOrdinal();
+        }
+        int remaining = group.length;
+        int step = 0;
+        while (step < steps && remaining > 0) {
+            for (int i = 0; i < group.length; ++i) {
+                if (directions[i] != LEFT && !move(group[i], i, xs, ys, directions, log)) {
+                    --remaining;
+                }
+            }
+            ++step;
+        }
+        for (int i = 0; i < group.length; ++i) {
+            if (directions[i] != LEFT) {
+                ants.get(group[i]).setState(xs[i], ys[i], directions[i]);
+            }
+        }
+        return step;
+    }
+
+    /**
+     * Moves an ant of a group once.
+     * @param ant The index of the ant.
+     * @param member The position of the ant within its group.
+     * @param xs The x positions of the ants of the group.
+     * @param ys The y positions of the ants of the group.
+     * @param directions The direction ordinals of the ants of the group, {@link #LEFT} for ants that left the world.
+     * @param log The log to add the flipped tile to.
+     * @return true if the ant is still inside the world, false if it just left it.
+     */
+    private boolean move(int ant, int member, int[] xs, int[] ys, int[] directions, FlipLog log) {
+        int nextX = xs[member] + Direction.deltaX(directions[member]);
+        int nextY = ys[member] + Direction.deltaY(directions[member]);
+        if (!tiles.contains(nextX, nextY)) {
+            // The ant takes care of recording its last position when leaving the world.
+            ants.get(ant).setState(xs[member], ys[member], directions[member]);
+            ants.get(ant).move();
+            directions[member] = LEFT;
+            return false;
+        }
+        xs[member] = nextX;
+        ys[member] = nextY;
+        boolean black = tiles.flip(nextX, nextY);
+        log.add(nextX, nextY, black);
+        directions[member] = black
+                ? Direction.counterClockwiseNext(directions[member]) : Direction.clockwiseNext(directions[member]);
+        return true;
+    }
+
+    /**
+     * Finds the representative of the set containing the given element, compressing the path on the way.
+     * @param parent The parent of every element.
+     * @param element The element.
+     * @return The representative.
+     */
+    private static int find(int[] parent, int element) {
+        int root = element;
+        while (parent[root] != root) {
+            root = parent[root];
+        }
+        int current = element;
+        while (parent[current] != root) {
+            int next = parent[current];
+            parent[current] = root;
+            current = next;
+        }
+        return root;
+    }
+
+    /**
+     * Joins the sets containing the given elements, keeping the smaller representative.
+     * @param parent The parent of every element.
+     * @param first The first element.
+     * @param second The second element.
+     */
+    private static void union(int[] parent, int first, int second) {
+        int firstRoot = find(parent, first);
+        int secondRoot = find(parent, second);
+        if (firstRoot != secondRoot) {
+            parent[Math.max(firstRoot, secondRoot)] = Math.min(firstRoot, secondRoot);
+        }
+    }
+
+    /**
+     * The tiles a group flipped during a batch, in the order it flipped them.
+     */
+    private static final class FlipLog {
+
+        private final int[] xs;
+        private final int[] ys;
+        private final boolean[] wereBlack;
+        private int size;
+
+        /**
+         * Creates a new empty log.
+         * @param capacity The maximum amount of flips.
+         */
+        FlipLog(int capacity) {
+            this.xs = new int[capacity];
+            this.ys = new int[capacity];
+            this.wereBlack = new boolean[capacity];
+        }
+
+        /**
+         * Adds a flipped tile to the log.
+         * @param x The x position of the tile.
+         * @param y The y position of the tile.
+         * @param wasBlack true if the tile was black before, false if it was white.
+         */
+        void add(int x, int y, boolean wasBlack) {
+            xs[size] = x;
+            ys[size] = y;
+            wereBlack[size] = wasBlack;
+            ++size;
+        }
+
+        /**
+         * Adds all flipped tiles of the log to the given tally.
+         * @param tally The tally.
+         */
+        void addTo(TileTally tally) {
+            for (int i = 0; i < size; ++i) {
+                tally.flip(xs[i], ys[i], wereBlack[i]);
+            }
+        }
+    }
+}
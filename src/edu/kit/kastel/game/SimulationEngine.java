@@ -0,0 +1,69 @@
+package edu.kit.kastel.game;
+
+import edu.kit.kastel.game.storage.BitGrid;
+import edu.kit.kastel.game.storage.ChunkedTileStore;
+import edu.kit.kastel.game.storage.MacroCellStore;
+import edu.kit.kastel.game.storage.PackedColorGrid;
+import edu.kit.kastel.game.storage.SparseTileStore;
+import edu.kit.kastel.game.storage.TileStore;
+
+import java.util.List;
+
+/**
+ * A simulation engine advancing the ants of a world over the tiles of a specific tile store.
+ *
+ * @author uwwfh
+ */
+interface SimulationEngine {
+
+    /**
+     * Advances the simulation by the given amount of steps, stopping early if the ant leaves the world.
+     * @param steps The amount of steps to perform, must be non-negative.
+     * @return The amount of steps that were actually performed, including the one leaving the world.
+     */
+    long advance(long steps);
+
+    /**
+     * Writes the position and direction of an ant back after a walk of an engine, performing the step leaving
+     * the world if the walk ended there. The ant takes care of recording its last position when it leaves.
+     * @param ant The ant.
+     * @param x The x position of the ant.
+     * @param y The y position of the ant.
+     * @param direction The direction ordinal of the ant.
+     * @param performed The amount of steps the walk performed inside the world.
+     * @param leaving If the next step of the ant leaves the world.
+     * @return The amount of steps that were actually performed, including the one leaving the world.
+     */
+    static long finishWalk(Ant ant, int x, int y, int direction, long performed, boolean leaving) {
+        ant.setState(x, y, direction);
+        if (!leaving) {
+            return performed;
+        }
+        ant.move();
+        return performed + 1;
+    }
+
+    /**
+     * Creates the simulation engine matching the given tile store, ants and rule of a world.
+     * @param world The world to simulate.
+     * @param tiles The store holding the tiles of the world, a packed color grid for rules other than Langton's ant.
+     * @param ants The ants roaming the world, in the order they move in.
+     * @param rule The rule the ants follow.
+     * @return The simulation engine.
+     */
+    static SimulationEngine create(World world, TileStore tiles, List<Ant> ants, TurmiteRule rule) {
+        Ant ant = ants.get(0);
+        if (!rule.isLangton()) {
+            return new TurmiteEngine(world, (PackedColorGrid) tiles, ants, rule);
+        } else if (ants.size() > 1) {
+            return new MultiAntEngine(tiles, ants, world.getTally());
+        } else if (tiles instanceof MacroCellStore store) {
+            return new MacroCellEngine(store, ant, world.getTally(), MacroCellEngine.DEFAULT_MEMO_CAPACITY);
+        } else if (tiles instanceof ChunkedTileStore store) {
+            return new ChunkedEngine(world, store, ant);
+        } else if (tiles instanceof SparseTileStore store) {
+            return new SparseEngine(world, store, ant);
+        }
+        return new BitGridEngine(world, (BitGrid) tiles, ant);
+    }
+}
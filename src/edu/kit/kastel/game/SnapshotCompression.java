@@ -0,0 +1,50 @@
+package edu.kit.kastel.game;
+
+import java.util.Optional;
+
+/**
+ * The ways the tile payload of a world snapshot can be compressed.
+ *
+ * @author uwwfh
+ */
+public enum SnapshotCompression {
+
+    /**
+     * The tile words are stored as they are.
+     */
+    NONE("none"),
+    /**
+     * Runs of equal tile words are stored as pairs of run length and word.
+     */
+    RUN_LENGTH("rle"),
+    /**
+     * The tile words are compressed with deflate.
+     */
+    DEFLATE("deflate");
+
+    private final String name;
+
+    SnapshotCompression(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Attempts to parse a compression from its name. If there is no compression with that name,
+     * returns an empty optional.
+     * @param name The name of the compression.
+     * @return Optional of the compression or empty.
+     */
+    public static Optional<SnapshotCompression> parse(String name) {
+        for (SnapshotCompression compression : values()) {
+            if (compression.name.equals(name)) {
+                return Optional.of(compression);
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
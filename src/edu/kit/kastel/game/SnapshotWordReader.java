@@ -0,0 +1,125 @@
+package edu.kit.kastel.game;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads the tile words of a world snapshot from a channel, decompressing them as needed.
+ *
+ * @author uwwfh
+ */
+final class SnapshotWordReader {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final String ERROR_TRUNCATED = "the snapshot is truncated.";
+    private static final String ERROR_CORRUPT = "the snapshot payload is corrupt.";
+
+    private final ReadableByteChannel channel;
+    private final SnapshotCompression compression;
+    private final ByteBuffer words = ByteBuffer.allocateDirect(BUFFER_SIZE).flip();
+    private final Inflater inflater;
+    private final ByteBuffer input;
+    private long runWord;
+    private long runLength;
+
+    /**
+     * Creates a new reader.
+     * @param channel The channel to read from, positioned at the start of the payload.
+     * @param compression The compression of the payload.
+     */
+    SnapshotWordReader(ReadableByteChannel channel, SnapshotCompression compression) {
+        this.channel = channel;
+        this.compression = compression;
+        this.inflater = compression == SnapshotCompression.DEFLATE ? new Inflater() : null;
+        this.input = inflater == null ? null : ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+
+    /**
+     * Reads the next tile word.
+     * @return The word.
+     * @throws IOException if reading from the channel failed.
+     * @throws IllegalArgumentException if the payload ends prematurely or is corrupt.
+     */
+    long read() throws IOException {
+        if (compression != SnapshotCompression.RUN_LENGTH) {
+            return readLong();
+        }
+        while (runLength == 0) {
+            runLength = readLong();
+            runWord = readLong();
+            if (runLength < 0) {
+                throw new IllegalArgumentException(ERROR_CORRUPT);
+            }
+        }
+        --runLength;
+        return runWord;
+    }
+
+    /**
+     * Releases the resources of the reader.
+     */
+    void close() {
+        if (inflater != null) {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Reads the next long of the decompressed payload.
+     * @return The long.
+     * @throws IOException if reading from the channel failed.
+     */
+    private long readLong() throws IOException {
+        if (words.remaining() < Long.BYTES) {
+            refill();
+            if (words.remaining() < Long.BYTES) {
+                throw new IllegalArgumentException(ERROR_TRUNCATED);
+            }
+        }
+        return words.getLong();
+    }
+
+    /**
+     * Moves the unread bytes to the start of the buffer and fills it up from the channel.
+     * @throws IOException if reading from the channel failed.
+     */
+    private void refill() throws IOException {
+        words.compact();
+        if (inflater == null) {
+            int read;
+            do {
+                read = channel.read(words);
+            } while (read >= 0 && words.hasRemaining());
+        } else {
+            inflate();
+        }
+        words.flip();
+    }
+
+    /**
+     * Fills up the buffer by inflating the compressed payload.
+     * @throws IOException if reading from the channel failed.
+     */
+    private void inflate() throws IOException {
+        try {
+            while (words.hasRemaining() && !inflater.finished()) {
+                if (inflater.needsInput()) {
+                    input.clear();
+                    if (channel.read(input) < 0) {
+                        return;
+                    }
+                    input.flip();
+                    inflater.setInput(input);
+                }
+                if (inflater.inflate(words) == 0 && inflater.needsDictionary()) {
+                    throw new IllegalArgumentException(ERROR_CORRUPT);
+                }
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException(ERROR_CORRUPT);
+        }
+    }
+}
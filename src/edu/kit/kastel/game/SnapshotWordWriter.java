@@ -0,0 +1,133 @@
+package edu.kit.kastel.game;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.zip.Deflater;
+
+/**
+ * Writes the tile words of a world snapshot to a channel, compressing them as requested.
+ * Words are collected in a large direct buffer, so the channel only ever sees big writes.
+ *
+ * @author uwwfh
+ */
+final class SnapshotWordWriter {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final WritableByteChannel channel;
+    private final SnapshotCompression compression;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final Deflater deflater;
+    private final ByteBuffer compressed;
+    private long runWord;
+    private long runLength;
+
+    /**
+     * Creates a new writer.
+     * @param channel The channel to write to.
+     * @param compression The compression to apply.
+     */
+    SnapshotWordWriter(WritableByteChannel channel, SnapshotCompression compression) {
+        this.channel = channel;
+        this.compression = compression;
+        this.deflater = compression == SnapshotCompression.DEFLATE ? new Deflater(Deflater.BEST_SPEED) : null;
+        this.compressed = deflater == null ? null : ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+
+    /**
+     * Writes the next tile word.
+     * @param word The word.
+     * @throws IOException if writing to the channel failed.
+     */
+    void write(long word) throws IOException {
+        if (compression != SnapshotCompression.RUN_LENGTH) {
+            putLong(word);
+        } else if (runLength > 0 && word == runWord) {
+            ++runLength;
+        } else {
+            finishRun();
+            runWord = word;
+            runLength = 1;
+        }
+    }
+
+    /**
+     * Writes all pending words to the channel. Must be called exactly once, after the last word.
+     * @throws IOException if writing to the channel failed.
+     */
+    void finish() throws IOException {
+        finishRun();
+        drain();
+        if (deflater != null) {
+            deflater.finish();
+            while (!deflater.finished()) {
+                deflateOnce();
+            }
+            deflater.end();
+        }
+    }
+
+    /**
+     * Writes the current run of equal words, if there is one.
+     * @throws IOException if writing to the channel failed.
+     */
+    private void finishRun() throws IOException {
+        if (runLength > 0) {
+            putLong(runLength);
+            putLong(runWord);
+            runLength = 0;
+        }
+    }
+
+    /**
+     * Puts a long into the buffer, draining the buffer first if it is full.
+     * @param value The long.
+     * @throws IOException if writing to the channel failed.
+     */
+    private void putLong(long value) throws IOException {
+        if (buffer.remaining() < Long.BYTES) {
+            drain();
+        }
+        buffer.putLong(value);
+    }
+
+    /**
+     * Writes the contents of the buffer to the channel, deflating them if requested.
+     * @throws IOException if writing to the channel failed.
+     */
+    private void drain() throws IOException {
+        buffer.flip();
+        if (deflater == null) {
+            writeFully(buffer);
+        } else {
+            deflater.setInput(buffer);
+            while (!deflater.needsInput()) {
+                deflateOnce();
+            }
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Deflates as much as fits into the output buffer and writes it to the channel.
+     * @throws IOException if writing to the channel failed.
+     */
+    private void deflateOnce() throws IOException {
+        deflater.deflate(compressed);
+        compressed.flip();
+        writeFully(compressed);
+        compressed.clear();
+    }
+
+    /**
+     * Writes all remaining bytes of the given buffer to the channel.
+     * @param source The buffer.
+     * @throws IOException if writing to the channel failed.
+     */
+    private void writeFully(ByteBuffer source) throws IOException {
+        while (source.hasRemaining()) {
+            channel.write(source);
+        }
+    }
+}
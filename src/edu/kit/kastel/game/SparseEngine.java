@@ -0,0 +1,63 @@
+package edu.kit.kastel.game;
+
+import edu.kit.kastel.game.storage.SparseTileStore;
+import edu.kit.kastel.game.worldbuilder.Direction;
+
+/**
+ * The simulation engine for a single ant in a world stored in a {@link SparseTileStore}.
+ * Every step flips a single entry of the hash set. Like on a dense grid, long runs are periodically probed
+ * for the highway, which is then fast-forwarded by whole periods.
+ *
+ * @author uwwfh
+ */
+final class SparseEngine implements SimulationEngine {
+
+    private final SparseTileStore store;
+    private final Ant ant;
+    private final HighwayAccelerator highway;
+    private final TileTally tally;
+
+    /**
+     * Creates a new engine.
+     * @param world The world to simulate.
+     * @param store The store holding the tiles of the world.
+     * @param ant The ant roaming the world.
+     */
+    SparseEngine(World world, SparseTileStore store, Ant ant) {
+        this.store = store;
+        this.ant = ant;
+        this.highway = new HighwayAccelerator(world, ant, 0, store.getWidth(), store.getHeight());
+        this.tally = world.getTally();
+    }
+
+    @Override
+    public long advance(long steps) {
+        return highway.advance(steps, this::walk);
+    }
+
+    /**
+     * Performs the given amount of steps one by one, stopping early if the ant leaves the world.
+     * @param steps The amount of steps to perform, must be non-negative.
+     * @return The amount of steps that were actually performed, including the one leaving the world.
+     */
+    private long walk(long steps) {
+        int x = ant.getX();
+        int y = ant.getY();
+        int direction = ant.getDirectionOrdinal();
+        long step = 0;
+        while (step < steps) {
+            int nextX = x + Direction.deltaX(direction);
+            int nextY = y + Direction.deltaY(direction);
+            if (!store.contains(nextX, nextY)) {
+                break;
+            }
+            x = nextX;
+            y = nextY;
+            boolean black = store.flip(x, y);
+            tally.flip(x, y, black);
+            direction = black ? Direction.counterClockwiseNext(direction) : Direction.clockwiseNext(direction);
+            ++step;
+        }
+        return SimulationEngine.finishWalk(ant, x, y, direction, step, step < steps);
+    }
+}
@@ -0,0 +1,52 @@
+package edu.kit.kastel.game;
+
+import java.util.Arrays;
+
+/**
+ * The characters representing the colors of tiles in world files and printed maps.
+ * Color 0 is white and shown as '0', color 1 is black and shown as '1', further colors of multi-color rules follow
+ * as the remaining digits and the uppercase letters that do not represent an ant.
+ *
+ * @author uwwfh
+ */
+final class TileCharacters {
+
+    /**
+     * The characters of all colors, in the order of the colors.
+     */
+    static final String CHARACTERS = "0123456789ABCDEFGHIJKLMPQRTUVXYZ";
+    /**
+     * The amount of colors that have a character.
+     */
+    static final int COLOR_COUNT = CHARACTERS.length();
+    private static final int NO_COLOR = -1;
+    private static final int ASCII_LIMIT = 128;
+    private static final int[] COLORS = new int[ASCII_LIMIT];
+
+    static {
+        Arrays.fill(COLORS, NO_COLOR);
+        for (int color = 0; color < COLOR_COUNT; ++color) {
+            COLORS[CHARACTERS.charAt(color)] = color;
+        }
+    }
+
+    private TileCharacters() { }
+
+    /**
+     * Gets the character representing the given color.
+     * @param color The color, less than {@link #COLOR_COUNT}.
+     * @return The character.
+     */
+    static char of(int color) {
+        return CHARACTERS.charAt(color);
+    }
+
+    /**
+     * Gets the color represented by the given character.
+     * @param character The character.
+     * @return The color, or -1 if the character does not represent a color.
+     */
+    static int colorOf(int character) {
+        return character >= 0 && character < ASCII_LIMIT ? COLORS[character] : NO_COLOR;
+    }
+}
@@ -0,0 +1,348 @@
+package edu.kit.kastel.game;
+
+import edu.kit.kastel.game.storage.ChunkedTileStore;
+import edu.kit.kastel.game.storage.TileStore;
+
+import java.util.Arrays;
+
+/**
+ * The black tiles of a world, tallied as they change: their total amount, the amount in every row, every column
+ * and every block of {@value #BLOCK_SIZE} x {@value #BLOCK_SIZE} tiles of the map, and the box bounding every tile
+ * an ant has been on, as well as the amount of times the ants changed the color of a tile.
+ * Tiles of any color but white count as black.
+ * The world and its simulation engines report every tile they paint, so all queries about the map take constant time.
+ * Only the rows and columns of the map are tallied, including their tiles beyond the map. The rows and columns beyond
+ * the map, which only infinite worlds have, are counted by the {@link ChunkedTileStore} when asked for, reading just
+ * the chunks allocated in them, so the memory of the tally does not grow with the distance the ants travel.
+ * The macro cell engine never sees the single tiles of a memoized run, it reports the amount of black tiles and
+ * the visited box of its runs instead. Its rows, columns and blocks are tallied anew the next time one of them is
+ * asked for.
+ * A tally is not safe for concurrent use.
+ *
+ * @author uwwfh
+ */
+public final class TileTally {
+
+    /**
+     * The side length of the blocks whose black tiles are tallied, one word wide and aligned to the words.
+     */
+    static final int BLOCK_SIZE = Long.SIZE;
+    private static final int BLOCK_SHIFT = Integer.numberOfTrailingZeros(BLOCK_SIZE);
+
+    private final TileStore tiles;
+    private final LineCounts rows;
+    private final LineCounts columns;
+    private final int blockColumns;
+    private final int[] blocks;
+    private long blackTiles;
+    private long tilesFlipped;
+    private boolean linesStale;
+    private int minX = Integer.MAX_VALUE;
+    private int minY = Integer.MAX_VALUE;
+    private int maxX = Integer.MIN_VALUE;
+    private int maxY = Integer.MIN_VALUE;
+
+    /**
+     * Creates a new tally of the given tiles, counting their black tiles once. Nothing has been visited yet.
+     * @param tiles The tiles.
+     */
+    TileTally(TileStore tiles) {
+        this.tiles = tiles;
+        this.rows = new LineCounts(tiles.getHeight());
+        this.columns = new LineCounts(tiles.getWidth());
+        this.blockColumns = (tiles.getWidth() + BLOCK_SIZE - 1) >> BLOCK_SHIFT;
+        this.blocks = new int[Math.multiplyExact(blockColumns, (tiles.getHeight() + BLOCK_SIZE - 1) >> BLOCK_SHIFT)];
+        recount();
+    }
+
+    /**
+     * Records that an ant inverted the tile at the given position, visiting it.
+     * @param x The x position.
+     * @param y The y position.
+     * @param wasBlack true if the tile was black before, false if it was white.
+     */
+    void flip(int x, int y, boolean wasBlack) {
+        ++tilesFlipped;
+        tallyBlack(x, y, wasBlack ? -1 : 1);
+    }
+
+    /**
+     * Records that an ant painted the tile at the given position, visiting it.
+     * Whether the tile changed its color is hard to predict, so it is tallied without branching on it.
+     * @param x The x position.
+     * @param y The y position.
+     * @param color The color of the tile before, 0 for white.
+     * @param painted The color of the tile now, 0 for white.
+     */
+    void paint(int x, int y, int color, int painted) {
+        tilesFlipped += color != painted ? 1 : 0;
+        tallyBlack(x, y, (painted != TurmiteRule.WHITE ? 1 : 0) - (color != TurmiteRule.WHITE ? 1 : 0));
+    }
+
+    /**
+     * Records that the ants flipped tiles without reporting them one by one, as the macro cell engine and the
+     * fast-forwarded periods of a highway do.
+     * @param flips The amount of flipped tiles.
+     */
+    void addFlips(long flips) {
+        tilesFlipped += flips;
+    }
+
+    /**
+     * Records that an ant has been on the tile at the given position.
+     * @param x The x position.
+     * @param y The y position.
+     */
+    void visit(int x, int y) {
+        // The box rarely grows, so these branches are well predicted and the fields are rarely written.
+        if (x < minX) {
+            minX = x;
+        }
+        if (x > maxX) {
+            maxX = x;
+        }
+        if (y < minY) {
+            minY = y;
+        }
+        if (y > maxY) {
+            maxY = y;
+        }
+    }
+
+    /**
+     * Records that an ant has been on the tiles of the given box, without changing the tally of the black tiles.
+     * @param fromX The smallest x position, inclusive.
+     * @param fromY The smallest y position, inclusive.
+     * @param toX The largest x position, inclusive.
+     * @param toY The largest y position, inclusive.
+     */
+    void visit(int fromX, int fromY, int toX, int toY) {
+        visit(fromX, fromY);
+        visit(toX, toY);
+    }
+
+    /**
+     * Replaces the amount of black tiles after the tiles changed without being reported one by one.
+     * The rows, columns and blocks are tallied anew when one of them is asked for next.
+     * @param blackTiles The amount of black tiles.
+     */
+    void replaceBlackTiles(long blackTiles) {
+        this.blackTiles = blackTiles;
+        linesStale = true;
+    }
+
+    /**
+     * Gets the amount of black tiles.
+     * @return The amount of black tiles.
+     */
+    public long getBlackTiles() {
+        return blackTiles;
+    }
+
+    /**
+     * Gets the amount of times an ant changed the color of a tile, counting every move, also those undone by
+     * rewinding or stepping back. Restoring a checkpoint flips no tiles one by one and is not counted.
+     * @return The amount of flipped tiles.
+     */
+    public long getTilesFlipped() {
+        return tilesFlipped;
+    }
+
+    /**
+     * Gets the amount of black tiles in the given row.
+     * @param y The y position of the row.
+     * @return The amount of black tiles.
+     */
+    public long getRowBlackTiles(int y) {
+        if (!rows.contains(y)) {
+            return tiles instanceof ChunkedTileStore chunked ? chunked.countRow(y) : 0;
+        }
+        refreshLines();
+        return rows.get(y);
+    }
+
+    /**
+     * Gets the amount of black tiles in the given column.
+     * @param x The x position of the column.
+     * @return The amount of black tiles.
+     */
+    public long getColumnBlackTiles(int x) {
+        if (!columns.contains(x)) {
+            return tiles instanceof ChunkedTileStore chunked ? chunked.countColumn(x) : 0;
+        }
+        refreshLines();
+        return columns.get(x);
+    }
+
+    /**
+     * Gets the amount of black tiles in the given block of the map.
+     * @param column The column of the block, its smallest x position divided by {@value #BLOCK_SIZE}.
+     * @param row The row of the block, its smallest y position divided by {@value #BLOCK_SIZE}.
+     * @return The amount of black tiles.
+     */
+    long getBlockBlackTiles(int column, int row) {
+        refreshLines();
+        return blocks[row * blockColumns + column];
+    }
+
+    /**
+     * If an ant has been on any tile so far.
+     * @return true if a tile was visited, false if not.
+     */
+    public boolean hasVisited() {
+        return minX <= maxX;
+    }
+
+    /**
+     * Gets the smallest x position of the visited tiles.
+     * @return The smallest x position, inclusive.
+     */
+    public int getVisitedMinX() {
+        return minX;
+    }
+
+    /**
+     * Gets the smallest y position of the visited tiles.
+     * @return The smallest y position, inclusive.
+     */
+    public int getVisitedMinY() {
+        return minY;
+    }
+
+    /**
+     * Gets the largest x position of the visited tiles.
+     * @return The largest x position, inclusive.
+     */
+    public int getVisitedMaxX() {
+        return maxX;
+    }
+
+    /**
+     * Gets the largest y position of the visited tiles.
+     * @return The largest y position, inclusive.
+     */
+    public int getVisitedMaxY() {
+        return maxY;
+    }
+
+    /**
+     * Tallies the rows, columns and blocks anew if the tiles changed without being reported one by one.
+     */
+    private void refreshLines() {
+        if (linesStale) {
+            recount();
+        }
+    }
+
+    /**
+     * Tallies all black tiles anew, scanning the tiles word by word. The visited box is kept.
+     */
+    void recount() {
+        blackTiles = 0;
+        rows.clear();
+        columns.clear();
+        Arrays.fill(blocks, 0);
+        tiles.forEachWord(this::addWord);
+        linesStale = false;
+    }
+
+    /**
+     * Adds the black tiles of a word of 64 tiles of a row to the tally.
+     * @param x The x position of the first tile of the word.
+     * @param y The y position of the row.
+     * @param word The word, bit i holding the tile at x + i.
+     */
+    private void addWord(int x, int y, long word) {
+        if (word == 0) {
+            return;
+        }
+        int count = Long.bitCount(word);
+        blackTiles += count;
+        rows.add(y, count);
+        if (rows.contains(y) && columns.contains(x)) {
+            long inside = x + Long.SIZE <= tiles.getWidth() ? word : word & (1L << (tiles.getWidth() - x)) - 1;
+            addToBlock(x, y, Long.bitCount(inside));
+        }
+        for (long bits = word; bits != 0; bits &= bits - 1) {
+            columns.add(x + Long.numberOfTrailingZeros(bits), 1);
+        }
+    }
+
+    /**
+     * Records that the tile at the given position was visited and changed between black and white.
+     * @param x The x position.
+     * @param y The y position.
+     * @param delta 1 if the tile turned black, -1 if it turned white, 0 if it did neither.
+     */
+    private void tallyBlack(int x, int y, int delta) {
+        visit(x, y);
+        blackTiles += delta;
+        rows.add(y, delta);
+        columns.add(x, delta);
+        addToBlock(x, y, delta);
+    }
+
+    /**
+     * Adds to the amount of black tiles of the block holding the given tile, if it lies in the map.
+     * @param x The x position of the tile.
+     * @param y The y position of the tile.
+     * @param delta The amount to add.
+     */
+    private void addToBlock(int x, int y, int delta) {
+        if (columns.contains(x) && rows.contains(y)) {
+            blocks[(y >> BLOCK_SHIFT) * blockColumns + (x >> BLOCK_SHIFT)] += delta;
+        }
+    }
+
+    /**
+     * The amounts of black tiles of the rows or columns of the map. Tiles of lines beyond the map are ignored.
+     */
+    private static final class LineCounts {
+
+        private final int[] counts;
+
+        /**
+         * Creates new counts of the lines from 0 to the given length.
+         * @param length The amount of lines.
+         */
+        LineCounts(int length) {
+            this.counts = new int[length];
+        }
+
+        /**
+         * If the given line is one of the counted lines.
+         * @param line The position of the line.
+         * @return true if the line is counted, false if not.
+         */
+        boolean contains(int line) {
+            return line >= 0 && line < counts.length;
+        }
+
+        /**
+         * Gets the amount of black tiles of a counted line.
+         * @param line The position of the line.
+         * @return The amount of black tiles.
+         */
+        int get(int line) {
+            return counts[line];
+        }
+
+        /**
+         * Adds to the amount of black tiles of a line, if it is counted.
+         * @param line The position of the line.
+         * @param delta The amount to add.
+         */
+        void add(int line, int delta) {
+            if (contains(line)) {
+                counts[line] += delta;
+            }
+        }
+
+        /**
+         * Sets the amounts of all lines to 0.
+         */
+        void clear() {
+            Arrays.fill(counts, 0);
+        }
+    }
+}
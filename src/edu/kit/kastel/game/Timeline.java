@@ -0,0 +1,380 @@
+package edu.kit.kastel.game;
+
+import edu.kit.kastel.game.storage.TileStore;
+import edu.kit.kastel.game.storage.WordConsumer;
+import edu.kit.kastel.game.worldbuilder.Direction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The steps of a world, which can be travelled back and forth.
+ * Langton's ant is reversible: the color of the tile an ant is on tells which way it turned, so inverting the tile
+ * and stepping back against the previous direction undoes a step without recording anything while stepping.
+ * As an ant outside the world no longer changes anything, only steps in which all ants are inside can be undone
+ * this way. The timeline therefore also keeps checkpoints of the black tiles and the ants, taken every so many
+ * steps while advancing. Seeking an earlier step either steps back from the current step or restores the latest
+ * checkpoint before it and advances from there, whichever takes fewer steps.
+ * Checkpoints are taken less often the more black tiles there are, so taking them costs a small share of the
+ * simulation. At most {@value #MAX_CHECKPOINTS} of them are kept in an eighth of the memory. Once there are more,
+ * every second one is dropped and they are taken half as often.
+ * Rewinding leaves the visited box of the tally as it is, so it keeps covering the tiles of the undone steps.
+ *
+ * @author uwwfh
+ */
+public final class Timeline {
+
+    private static final long INITIAL_INTERVAL = 1L << 16;
+    private static final long STEPS_PER_WORD = 256;
+    private static final int MAX_CHECKPOINTS = 32;
+    private static final int MEMORY_SHARE = 8;
+    private static final int BYTES_PER_WORD = 2 * Long.BYTES;
+    private static final long INT_MASK = 0xFFFFFFFFL;
+    private static final int ANT_FIELDS = 5;
+    private static final String ERROR_RULE = "rewinding is only supported for Langton's ant.";
+    private static final String ERROR_NEGATIVE = "the %s must be non-negative, but was %d.";
+    private static final String ERROR_TOO_FAR = "cannot rewind %d steps, only %d steps have been performed.";
+    private static final String ERROR_UNREACHABLE = "step %d can no longer be reached, as an ant has left the world.";
+
+    private final World world;
+    private final SimulationEngine engine;
+    private final boolean reversible;
+    private final long memoryBudget;
+    private final List<Checkpoint> checkpoints = new ArrayList<>();
+    private long checkpointBytes;
+    private long interval = INITIAL_INTERVAL;
+    private long nextCheckpoint;
+    private long stepCount;
+
+    /**
+     * Creates the timeline of a world, taking a checkpoint of its current step if its ants follow Langton's ant.
+     * @param world The world, whose tiles, tally and ants have to be created already.
+     * @param engine The simulation engine of the world.
+     * @param stepCount The amount of steps already performed in the world.
+     */
+    Timeline(World world, SimulationEngine engine, long stepCount) {
+        this.world = world;
+        this.engine = engine;
+        this.stepCount = stepCount;
+        this.reversible = world.getRule().isLangton();
+        this.memoryBudget = Runtime.getRuntime().maxMemory() / MEMORY_SHARE;
+        if (reversible) {
+            checkpoint();
+        }
+    }
+
+    /**
+     * Advances the simulation by the given amount of steps, taking the checkpoints due on the way.
+     * @param steps The amount of steps to perform, must be non-negative.
+     * @return The amount of steps that were actually performed, see {@link World#advance(long)}.
+     */
+    long advance(long steps) {
+        return advance(steps, engine);
+    }
+
+    /**
+     * Advances the simulation by the given amount of steps like {@link World#advance(long)}, recording every move
+     * of the ants to the given trace. Tracing moves the ants one at a time, which is slower than advancing untraced.
+     * @param steps The amount of steps to perform, must be non-negative.
+     * @param trace The trace.
+     * @return The amount of steps that were actually performed.
+     */
+    public long advance(long steps, TraceWriter trace) {
+        trace.resume(stepCount);
+        return advance(steps, new TracingEngine(world, trace));
+    }
+
+    /**
+     * Advances the simulation with the given engine, taking the checkpoints due on the way.
+     * @param steps The amount of steps to perform, must be non-negative.
+     * @param engine The engine performing the steps.
+     * @return The amount of steps that were actually performed.
+     */
+    private long advance(long steps, SimulationEngine engine) {
+        long performed = 0;
+        while (performed < steps) {
+            long chunk = reversible ? Math.min(steps - performed, nextCheckpoint - stepCount) : steps - performed;
+            long done = engine.advance(chunk);
+            performed += done;
+            stepCount += done;
+            if (reversible && stepCount >= nextCheckpoint) {
+                checkpoint();
+            }
+            if (done < chunk) {
+                break;
+            }
+        }
+        return performed;
+    }
+
+    /**
+     * Gets the amount of steps performed in the world so far.
+     * @return The step count.
+     */
+    public long getStepCount() {
+        return stepCount;
+    }
+
+    /**
+     * Undoes the given amount of steps.
+     * @param steps The amount of steps to undo.
+     * @throws IllegalArgumentException if the amount is negative or larger than the step count, the ants do not
+     *         follow Langton's ant or the step can no longer be reached.
+     */
+    public void rewind(long steps) {
+        if (steps < 0) {
+            throw new IllegalArgumentException(ERROR_NEGATIVE.formatted("amount of steps", steps));
+        }
+        if (steps > stepCount) {
+            throw new IllegalArgumentException(ERROR_TOO_FAR.formatted(steps, stepCount));
+        }
+        seek(stepCount - steps);
+    }
+
+    /**
+     * Travels to the given step. Later steps are simulated, earlier ones are reached by stepping back or from
+     * the latest checkpoint before them. Advancing stops early once every ant has left the world.
+     * @param step The step to travel to.
+     * @throws IllegalArgumentException if the step is negative, or earlier than the current one and either the
+     *         ants do not follow Langton's ant or the step can no longer be reached.
+     */
+    public void seek(long step) {
+        if (step < 0) {
+            throw new IllegalArgumentException(ERROR_NEGATIVE.formatted("step", step));
+        }
+        if (step >= stepCount) {
+            advance(step - stepCount);
+            return;
+        }
+        if (!reversible) {
+            throw new IllegalArgumentException(ERROR_RULE);
+        }
+        Checkpoint checkpoint = findCheckpoint(step);
+        boolean canStepBack = areAllAntsInside();
+        if (canStepBack && (checkpoint == null || stepCount - step <= step - checkpoint.step())) {
+            stepBack(stepCount - step);
+        } else if (checkpoint != null) {
+            restore(checkpoint);
+            advance(step - checkpoint.step());
+        } else {
+            throw new IllegalArgumentException(ERROR_UNREACHABLE.formatted(step));
+        }
+    }
+
+    /**
+     * Undoes the given amount of steps one by one, moving the ants back in reverse order. All ants have to be
+     * inside the world, so they were inside in all earlier steps as well.
+     * @param steps The amount of steps to undo.
+     */
+    private void stepBack(long steps) {
+        List<Ant> ants = world.getAnts();
+        for (long step = 0; step < steps; ++step) {
+            for (int i = ants.size() - 1; i >= 0; --i) {
+                stepBack(ants.get(i));
+            }
+        }
+        stepCount -= steps;
+    }
+
+    /**
+     * Undoes the last move of an ant. The tile it is on was inverted by the move, so a black tile was white before
+     * and the ant turned clockwise onto its direction, while a white tile means it turned counter-clockwise.
+     * @param ant The ant, which has to be inside the world.
+     */
+    private void stepBack(Ant ant) {
+        int x = ant.getX();
+        int y = ant.getY();
+        int direction = ant.getDirectionOrdinal();
+        int previous = world.flip(x, y) ? Direction.counterClockwiseNext(direction) : Direction.clockwiseNext(direction);
+        ant.setState(x - Direction.deltaX(previous), y - Direction.deltaY(previous), previous);
+    }
+
+    /**
+     * If every ant is inside the bounds of the world.
+     * @return true if no ant has left the world, false if one has.
+     */
+    private boolean areAllAntsInside() {
+        for (Ant ant : world.getAnts()) {
+            if (!world.isInside(ant.getX(), ant.getY())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the latest checkpoint at or before the given step.
+     * @param step The step.
+     * @return The checkpoint, or null if there is none.
+     */
+    private Checkpoint findCheckpoint(long step) {
+        for (int i = checkpoints.size() - 1; i >= 0; --i) {
+            if (checkpoints.get(i).step() <= step) {
+                return checkpoints.get(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Takes a checkpoint of the current step, unless its black tiles do not fit into the memory budget, and
+     * schedules the next one. The steps between checkpoints grow with the black tiles, as does the time taking
+     * one costs.
+     */
+    private void checkpoint() {
+        WordBuffer tiles = WordBuffer.of(world.getTiles(), memoryBudget / BYTES_PER_WORD);
+        if (tiles.size == tiles.seen) {
+            checkpoints.add(new Checkpoint(stepCount, tiles.toPositions(), tiles.toWords(), captureAnts()));
+            checkpointBytes += (long) tiles.size * BYTES_PER_WORD;
+            while (checkpoints.size() > 1 && (checkpoints.size() > MAX_CHECKPOINTS || checkpointBytes > memoryBudget)) {
+                thin();
+            }
+        }
+        interval = Math.max(interval, tiles.seen * STEPS_PER_WORD);
+        nextCheckpoint = stepCount + interval;
+    }
+
+    /**
+     * Drops every second checkpoint, keeping the first one, and takes the next ones half as often.
+     */
+    private void thin() {
+        for (int i = checkpoints.size() - 1; i > 0; --i) {
+            if (i % 2 == 1) {
+                checkpointBytes -= (long) checkpoints.remove(i).words().length * BYTES_PER_WORD;
+            }
+        }
+        interval *= 2;
+    }
+
+    /**
+     * Packs the position, direction and last position inside the world of every ant.
+     * @return The packed ants, {@value #ANT_FIELDS} values per ant.
+     */
+    private int[] captureAnts() {
+        List<Ant> ants = world.getAnts();
+        int[] packed = new int[ants.size() * ANT_FIELDS];
+        for (int i = 0; i < ants.size(); ++i) {
+            Ant ant = ants.get(i);
+            int offset = i * ANT_FIELDS;
+            packed[offset] = ant.getX();
+            packed[offset + 1] = ant.getY();
+            packed[offset + 2] = ant.getDirectionOrdinal();
+            packed[offset + 3] = ant.getLastInBoundsLocation().getX();
+            packed[offset + 4] = ant.getLastInBoundsLocation().getY();
+        }
+        return packed;
+    }
+
+    /**
+     * Restores the tiles and ants of a checkpoint. Inverting every black tile leaves all tiles white, inverting the
+     * black tiles of the checkpoint then paints them. The tally is counted anew afterwards.
+     * @param checkpoint The checkpoint.
+     */
+    private void restore(Checkpoint checkpoint) {
+        TileStore tiles = world.getTiles();
+        WordBuffer current = WordBuffer.of(tiles, Long.MAX_VALUE);
+        invert(tiles, current.positions, current.words, current.size);
+        invert(tiles, checkpoint.positions(), checkpoint.words(), checkpoint.words().length);
+        world.getTally().recount();
+        List<Ant> ants = world.getAnts();
+        int[] packed = checkpoint.ants();
+        for (int i = 0; i < ants.size(); ++i) {
+            int offset = i * ANT_FIELDS;
+            ants.get(i).setState(packed[offset], packed[offset + 1], packed[offset + 2]);
+            ants.get(i).setLastInBounds(packed[offset + 3], packed[offset + 4]);
+        }
+        stepCount = checkpoint.step();
+    }
+
+    /**
+     * Inverts the tiles of the set bits of the given words.
+     * @param tiles The tiles.
+     * @param positions The packed positions of the words.
+     * @param words The words.
+     * @param size The amount of words.
+     */
+    private static void invert(TileStore tiles, long[] positions, long[] words, int size) {
+        for (int i = 0; i < size; ++i) {
+            int x = (int) positions[i];
+            int y = (int) (positions[i] >>> Integer.SIZE);
+            for (long bits = words[i]; bits != 0; bits &= bits - 1) {
+                tiles.flip(x + Long.numberOfTrailingZeros(bits), y);
+            }
+        }
+    }
+
+    /**
+     * The black tiles and ants of a step.
+     * @param step The step.
+     * @param positions The packed positions of the words, y in the upper and x in the lower half.
+     * @param words The words holding black tiles, see {@link TileStore#forEachWord(WordConsumer)}.
+     * @param ants The packed ants.
+     */
+    private record Checkpoint(long step, long[] positions, long[] words, int[] ants) {
+    }
+
+    /**
+     * Collects the words holding black tiles of a tile store up to a limit, growing as needed.
+     */
+    private static final class WordBuffer implements WordConsumer {
+
+        private static final int INITIAL_CAPACITY = 64;
+
+        private final long limit;
+        private long[] positions = new long[INITIAL_CAPACITY];
+        private long[] words = new long[INITIAL_CAPACITY];
+        private int size;
+        private long seen;
+
+        /**
+         * Creates a new empty buffer.
+         * @param limit The maximum amount of words to collect.
+         */
+        private WordBuffer(long limit) {
+            this.limit = limit;
+        }
+
+        /**
+         * Collects the words holding black tiles of the given store. Words beyond the limit are only counted.
+         * @param tiles The store.
+         * @param limit The maximum amount of words to collect.
+         * @return The collected words.
+         */
+        static WordBuffer of(TileStore tiles, long limit) {
+            WordBuffer buffer = new WordBuffer(Math.min(limit, Integer.MAX_VALUE - Long.SIZE));
+            tiles.forEachWord(buffer);
+            return buffer;
+        }
+
+        @Override
+        public void accept(int x, int y, long word) {
+            if (word == 0 || seen++ >= limit) {
+                return;
+            }
+            if (size == words.length) {
+                positions = Arrays.copyOf(positions, (int) Math.min(limit, 2L * size));
+                words = Arrays.copyOf(words, positions.length);
+            }
+            positions[size] = ((long) y << Integer.SIZE) | (x & INT_MASK);
+            words[size] = word;
+            ++size;
+        }
+
+        /**
+         * Copies the packed positions of the collected words.
+         * @return The positions, exactly as many as there are words.
+         */
+        long[] toPositions() {
+            return Arrays.copyOf(positions, size);
+        }
+
+        /**
+         * Copies the collected words.
+         * @return The words.
+         */
+        long[] toWords() {
+            return Arrays.copyOf(words, size);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package edu.kit.kastel.game;
+
+/**
+ * Receives the positions and directions of the ants at the sampled steps of a replayed trace, see
+ * {@link TraceReader#replay(long, TraceListener)}.
+ *
+ * @author uwwfh
+ */
+@FunctionalInterface
+public interface TraceListener {
+
+    /**
+     * Receives the ants at a step. The arrays are reused for the following steps and must not be kept.
+     * @param step The step.
+     * @param xs The x positions of the ants, in the order they move in.
+     * @param ys The y positions of the ants.
+     * @param directions The direction ordinals of the ants.
+     */
+    void sample(long step, int[] xs, int[] ys, int[] directions);
+}
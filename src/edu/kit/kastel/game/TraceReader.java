@@ -0,0 +1,249 @@
+package edu.kit.kastel.game;
+
+import edu.kit.kastel.game.worldbuilder.Direction;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Replays a trace written by a {@link TraceWriter} without simulating the world: the moves alone tell where the
+ * ants go, and the bounds of the world in the header tell which of them are still inside.
+ * Every block is checked against its checksum before its moves are replayed. As every block starts with the
+ * positions of the ants, a trace whose last block was cut off, such as by a crash, replays up to that block.
+ *
+ * @author uwwfh
+ */
+public final class TraceReader implements AutoCloseable {
+
+    private static final String ERROR_INVALID_PATH = "an invalid path has been passed!";
+    private static final String ERROR_READ_FAILED = "could not read the trace from '%s'.";
+    private static final String ERROR_FORMAT = "the file is not a trace.";
+    private static final String ERROR_VERSION = "unsupported trace version %d.";
+    private static final String ERROR_CORRUPT = "block %d of the trace is corrupt.";
+    private static final int MOVES_OFFSET = Integer.BYTES + Long.BYTES;
+    private static final int DIRECTION_MASK = (1 << TraceWriter.BITS_PER_MOVE) - 1;
+
+    private final FileChannel channel;
+    private final int minX;
+    private final int minY;
+    private final int limitX;
+    private final int limitY;
+    private final int[] xs;
+    private final int[] ys;
+    private final int[] directions;
+    private final CRC32 checksum = new CRC32();
+    private long blockIndex;
+    private long blockEnd = -1;
+
+    /**
+     * Creates a new reader of a trace whose header has been read.
+     * @param channel The channel, positioned at the first block.
+     * @param header The header of the trace, positioned after the version.
+     */
+    private TraceReader(FileChannel channel, ByteBuffer header) {
+        this.channel = channel;
+        this.minX = header.getInt();
+        this.minY = header.getInt();
+        this.limitX = header.getInt();
+        this.limitY = header.getInt();
+        int antCount = header.getInt();
+        if (antCount <= 0 || minX >= limitX || minY >= limitY) {
+            throw new IllegalArgumentException(ERROR_FORMAT);
+        }
+        this.xs = new int[antCount];
+        this.ys = new int[antCount];
+        this.directions = new int[antCount];
+    }
+
+    /**
+     * Opens the trace at the given path, reading its header.
+     * @param path The path to the trace.
+     * @return The reader.
+     * @throws IllegalArgumentException if an invalid path has been passed, the file could not be read or is not a
+     *         trace.
+     */
+    public static TraceReader open(String path) {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(Path.of(path), StandardOpenOption.READ);
+        } catch (InvalidPathException e) {
+            throw new IllegalArgumentException(ERROR_INVALID_PATH);
+        } catch (IOException e) {
+            throw new IllegalArgumentException(ERROR_READ_FAILED.formatted(path));
+        }
+        try {
+            ByteBuffer header = ByteBuffer.allocate(TraceWriter.HEADER_SIZE);
+            if (!readFully(channel, header) || header.getInt() != TraceWriter.MAGIC) {
+                throw new IllegalArgumentException(ERROR_FORMAT);
+            }
+            short version = header.getShort();
+            if (version != TraceWriter.VERSION) {
+                throw new IllegalArgumentException(ERROR_VERSION.formatted(version));
+            }
+            return new TraceReader(channel, header);
+        } catch (IOException e) {
+            closeQuietly(channel);
+            throw new IllegalArgumentException(ERROR_READ_FAILED.formatted(path));
+        } catch (IllegalArgumentException e) {
+            closeQuietly(channel);
+            throw e;
+        }
+    }
+
+    /**
+     * Replays the rest of the trace, passing the ants at every step that is a multiple of the given interval to
+     * the listener. The first step of a block is only passed on if the block does not continue the one before,
+     * as after the ants were rewound.
+     * @param every The interval of the sampled steps, must be positive.
+     * @param listener The listener receiving the sampled steps.
+     * @throws IOException if reading the trace failed.
+     * @throws IllegalArgumentException if a block is corrupt.
+     */
+    public void replay(long every, TraceListener listener) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(TraceWriter.BLOCK_HEADER_SIZE + xs.length * TraceWriter.ANT_SIZE);
+        while (channel.position() < channel.size()) {
+            if (!readFully(channel, header.clear())) {
+                throw corrupt();
+            }
+            ByteBuffer payload = readBlock(header);
+            long step = header.getLong(Integer.BYTES);
+            if (step != blockEnd && step % every == 0) {
+                listener.sample(step, xs, ys, directions);
+            }
+            blockEnd = replayBlock(payload, header.getInt(MOVES_OFFSET), step, every, listener);
+            ++blockIndex;
+        }
+    }
+
+    /**
+     * Checks the header and checksum of a block and restores the ants at its start.
+     * @param header The header of the block, read in full.
+     * @return The moves of the block.
+     * @throws IOException if reading the trace failed.
+     * @throws IllegalArgumentException if the block is corrupt.
+     */
+    private ByteBuffer readBlock(ByteBuffer header) throws IOException {
+        int moves = header.getInt(MOVES_OFFSET);
+        if (header.getInt(0) != TraceWriter.BLOCK_MAGIC || moves <= 0
+                || moves > TraceWriter.BLOCK_MOVES + xs.length) {
+            throw corrupt();
+        }
+        ByteBuffer payload = ByteBuffer.allocate((moves + TraceWriter.MOVES_PER_BYTE - 1) / TraceWriter.MOVES_PER_BYTE
+                + Integer.BYTES);
+        if (!readFully(channel, payload)) {
+            throw corrupt();
+        }
+        checksum.reset();
+        checksum.update(header.array(), 0, header.limit());
+        checksum.update(payload.array(), 0, payload.limit() - Integer.BYTES);
+        if ((int) checksum.getValue() != payload.getInt(payload.limit() - Integer.BYTES)) {
+            throw corrupt();
+        }
+        header.position(TraceWriter.BLOCK_HEADER_SIZE);
+        for (int i = 0; i < xs.length; ++i) {
+            xs[i] = header.getInt();
+            ys[i] = header.getInt();
+            directions[i] = header.get() & DIRECTION_MASK;
+        }
+        return payload.limit(payload.limit() - Integer.BYTES);
+    }
+
+    /**
+     * Replays the moves of a block, in every step moving every ant inside the world once.
+     * @param payload The moves of the block.
+     * @param moves The amount of moves.
+     * @param firstStep The step the block starts at.
+     * @param every The interval of the sampled steps.
+     * @param listener The listener receiving the sampled steps.
+     * @return The step the block ends at.
+     * @throws IllegalArgumentException if the moves do not end with a step.
+     */
+    private long replayBlock(ByteBuffer payload, int moves, long firstStep, long every, TraceListener listener) {
+        long step = firstStep;
+        int move = 0;
+        while (move < moves) {
+            int movedBefore = move;
+            for (int i = 0; i < xs.length; ++i) {
+                if (isInside(xs[i], ys[i])) {
+                    if (move == moves) {
+                        throw corrupt();
+                    }
+                    xs[i] += Direction.deltaX(directions[i]);
+                    ys[i] += Direction.deltaY(directions[i]);
+                    int bits = payload.get(move / TraceWriter.MOVES_PER_BYTE);
+                    directions[i] = bits >>> (TraceWriter.BITS_PER_MOVE * (move % TraceWriter.MOVES_PER_BYTE)) & DIRECTION_MASK;
+                    ++move;
+                }
+            }
+            if (move == movedBefore) {
+                throw corrupt();
+            }
+            if (++step % every == 0) {
+                listener.sample(step, xs, ys, directions);
+            }
+        }
+        return step;
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * If the given position is inside the bounds of the traced world.
+     * @param x The x position.
+     * @param y The y position.
+     * @return true if the position is inside the world, false if not.
+     */
+    private boolean isInside(int x, int y) {
+        return x >= minX && x < limitX && y >= minY && y < limitY;
+    }
+
+    /**
+     * Creates the exception reporting the current block as corrupt.
+     * @return The exception.
+     */
+    private IllegalArgumentException corrupt() {
+        return new IllegalArgumentException(ERROR_CORRUPT.formatted(blockIndex));
+    }
+
+    /**
+     * Reads bytes until the given buffer is full or the file ends.
+     * @param channel The channel to read from.
+     * @param buffer The buffer to fill, ready to be read afterwards.
+     * @return true if the buffer was filled, false if the file ended before.
+     * @throws IOException if reading the file failed.
+     */
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        int read;
+        do {
+            read = channel.read(buffer);
+        } while (read >= 0 && buffer.hasRemaining());
+        boolean full = !buffer.hasRemaining();
+        buffer.flip();
+        return full;
+    }
+
+    /**
+     * Closes the given channel, ignoring any failure, as another one is reported already.
+     * @param channel The channel.
+     */
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // The failure that made the channel useless is reported instead.
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package edu.kit.kastel.game;
+
+import edu.kit.kastel.game.storage.ChunkedTileStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Records the path of the ants of a world to an append-only binary trace file, 2 bits per move of an ant.
+ * A trace starts with a header holding the magic number, the format version, the bounds of the world as the
+ * smallest x and y position and the x and y position past the largest one, and the amount of ants, all big-endian.
+ * Blocks of moves follow, each holding its own magic number, the step it starts at, the amount of moves in it,
+ * the position and direction of every ant at its start, the moves and a CRC-32 of everything before it. Every move
+ * is the direction an ant faces after the step, which is both the turn it took and where its next step leads.
+ * Move i is held in bits 2 * (i % 4) of byte i / 4, in every step every ant inside the world moves once, in order.
+ * Blocks end after a step only, so each one can be read on its own. A block is written once it holds
+ * {@value #BLOCK_MOVES} moves, when the ants have been moved without being traced and when the trace is closed.
+ * A failed write does not interrupt the simulation, the trace stops recording and reports the failure when it is
+ * closed. A trace is not safe for concurrent use.
+ *
+ * @author uwwfh
+ */
+public final class TraceWriter implements AutoCloseable {
+
+    /**
+     * The magic number starting every trace.
+     */
+    static final int MAGIC = 0x414E5454;
+    /**
+     * The magic number starting every block.
+     */
+    static final int BLOCK_MAGIC = 0x424C4B54;
+    /**
+     * The current version of the trace format.
+     */
+    static final short VERSION = 1;
+    /**
+     * The size of the header of a trace.
+     */
+    static final int HEADER_SIZE = Integer.BYTES + Short.BYTES + 5 * Integer.BYTES;
+    /**
+     * The size of the header of a block, without the ants.
+     */
+    static final int BLOCK_HEADER_SIZE = Integer.BYTES + Long.BYTES + Integer.BYTES;
+    /**
+     * The size of the position and direction of an ant in the header of a block.
+     */
+    static final int ANT_SIZE = 2 * Integer.BYTES + 1;
+    /**
+     * The amount of bits of a move.
+     */
+    static final int BITS_PER_MOVE = 2;
+    /**
+     * The amount of moves held in a byte.
+     */
+    static final int MOVES_PER_BYTE = Byte.SIZE / BITS_PER_MOVE;
+    /**
+     * The amount of moves after which a block is written.
+     */
+    static final int BLOCK_MOVES = 1 << 18;
+    private static final int MOVES_OFFSET = Integer.BYTES + Long.BYTES;
+    private static final String ERROR_INVALID_PATH = "an invalid path has been passed!";
+    private static final String ERROR_WRITE_FAILED = "could not write the trace to '%s'.";
+
+    private final FileChannel channel;
+    private final String path;
+    private final List<Ant> ants;
+    private final ByteBuffer block;
+    private final CRC32 checksum = new CRC32();
+    private IOException failure;
+    private boolean blockStarted;
+    private long step;
+    private int moves;
+    private int pending;
+
+    /**
+     * Creates a new trace of the ants of the given world.
+     * @param channel The channel to write to.
+     * @param path The path of the file, for error messages.
+     * @param ants The ants of the world.
+     */
+    private TraceWriter(FileChannel channel, String path, List<Ant> ants) {
+        this.channel = channel;
+        this.path = path;
+        this.ants = ants;
+        this.block = ByteBuffer.allocate(BLOCK_HEADER_SIZE + ants.size() * ANT_SIZE
+                + (BLOCK_MOVES + ants.size()) / MOVES_PER_BYTE + 1 + Integer.BYTES);
+    }
+
+    /**
+     * Starts a trace of the ants of the given world at the given path, replacing any existing file.
+     * @param world The world.
+     * @param path The path to write the trace to.
+     * @return The trace, to be passed to {@link Timeline#advance(long, TraceWriter)}.
+     * @throws IllegalArgumentException if an invalid path has been passed or the trace could not be written.
+     */
+    public static TraceWriter create(World world, String path) {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(Path.of(path), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (InvalidPathException e) {
+            throw new IllegalArgumentException(ERROR_INVALID_PATH);
+        } catch (IOException e) {
+            throw new IllegalArgumentException(ERROR_WRITE_FAILED.formatted(path));
+        }
+        TraceWriter trace = new TraceWriter(channel, path, world.getAnts());
+        trace.writeFully(header(world));
+        if (trace.hasFailed()) {
+            try {
+                trace.close();
+            } catch (UncheckedIOException e) {
+                throw new IllegalArgumentException(e.getMessage());
+            }
+        }
+        return trace;
+    }
+
+    /**
+     * Continues the trace at the given step. If the ants were moved since the last traced step, the current block
+     * is written and a new one starts.
+     * @param step The current step.
+     */
+    void resume(long step) {
+        if (blockStarted && step != this.step) {
+            writeBlock();
+        }
+        if (!blockStarted) {
+            this.step = step;
+            startBlock();
+        }
+    }
+
+    /**
+     * Records a move of an ant.
+     * @param direction The direction ordinal of the ant after the move.
+     */
+    void record(int direction) {
+        pending |= direction << (BITS_PER_MOVE * (moves & (MOVES_PER_BYTE - 1)));
+        if ((++moves & (MOVES_PER_BYTE - 1)) == 0) {
+            block.put((byte) pending);
+            pending = 0;
+        }
+    }
+
+    /**
+     * Records the end of a step, writing the current block if it is full.
+     */
+    void endStep() {
+        ++step;
+        if (moves >= BLOCK_MOVES) {
+            writeBlock();
+            startBlock();
+        }
+    }
+
+    /**
+     * If writing the trace failed, which stops the recording.
+     * @return true if the trace failed, false if not.
+     */
+    public boolean hasFailed() {
+        return failure != null;
+    }
+
+    /**
+     * Writes the current block and closes the trace.
+     * @throws UncheckedIOException if the trace could not be written, now or before.
+     */
+    @Override
+    public void close() {
+        writeBlock();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            failure = failure == null ? e : failure;
+        }
+        checkFailure();
+    }
+
+    /**
+     * Creates the header of a trace of the given world.
+     * @param world The world.
+     * @return The header, ready to be written.
+     */
+    private static ByteBuffer header(World world) {
+        boolean infinite = world.getTiles() instanceof ChunkedTileStore;
+        return ByteBuffer.allocate(HEADER_SIZE)
+                .putInt(MAGIC)
+                .putShort(VERSION)
+                .putInt(infinite ? ChunkedTileStore.MIN_POSITION : 0)
+                .putInt(infinite ? ChunkedTileStore.MIN_POSITION : 0)
+                .putInt(infinite ? ChunkedTileStore.LIMIT_POSITION : world.getWidth())
+                .putInt(infinite ? ChunkedTileStore.LIMIT_POSITION : world.getHeight())
+                .putInt(world.getAnts().size())
+                .flip();
+    }
+
+    /**
+     * Starts a new block at the current step, holding the current positions and directions of the ants.
+     */
+    private void startBlock() {
+        block.clear().putInt(BLOCK_MAGIC).putLong(step).putInt(0);
+        for (Ant ant : ants) {
+            block.putInt(ant.getX()).putInt(ant.getY()).put((byte) ant.getDirectionOrdinal());
+        }
+        moves = 0;
+        pending = 0;
+        blockStarted = true;
+    }
+
+    /**
+     * Writes the current block, if it holds any moves.
+     */
+    private void writeBlock() {
+        if (!blockStarted) {
+            return;
+        }
+        blockStarted = false;
+        if (moves == 0) {
+            return;
+        }
+        if ((moves & (MOVES_PER_BYTE - 1)) != 0) {
+            block.put((byte) pending);
+        }
+        block.putInt(MOVES_OFFSET, moves);
+        checksum.reset();
+        checksum.update(block.array(), 0, block.position());
+        block.putInt((int) checksum.getValue());
+        writeFully(block.flip());
+    }
+
+    /**
+     * Writes all remaining bytes of the given buffer, unless writing failed before.
+     * @param buffer The buffer.
+     */
+    private void writeFully(ByteBuffer buffer) {
+        if (failure != null) {
+            return;
+        }
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    /**
+     * Reports the failure to write the trace, if any.
+     * @throws UncheckedIOException if the trace could not be written.
+     */
+    private void checkFailure() {
+        if (failure != null) {
+            throw new UncheckedIOException(ERROR_WRITE_FAILED.formatted(path), failure);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package edu.kit.kastel.game;
+
+import java.util.List;
+
+/**
+ * A simulation engine recording every move of the ants to a trace. The ants move one at a time, as
+ * {@link Ant#move()} does, so tracing trades the speed of the other engines for the recorded path.
+ *
+ * @author uwwfh
+ */
+final class TracingEngine implements SimulationEngine {
+
+    private final World world;
+    private final TraceWriter trace;
+
+    /**
+     * Creates a new tracing engine.
+     * @param world The world to simulate.
+     * @param trace The trace to record the moves to, resumed at the current step of the world.
+     */
+    TracingEngine(World world, TraceWriter trace) {
+        this.world = world;
+        this.trace = trace;
+    }
+
+    @Override
+    public long advance(long steps) {
+        List<Ant> ants = world.getAnts();
+        long step = 0;
+        while (step < steps && !world.isAntOutOfBounds()) {
+            for (Ant ant : ants) {
+                if (world.isInside(ant.getX(), ant.getY())) {
+                    ant.move();
+                    trace.record(ant.getDirectionOrdinal());
+                }
+            }
+            trace.endStep();
+            ++step;
+        }
+        return step;
+    }
+}
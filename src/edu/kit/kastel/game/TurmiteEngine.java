@@ -0,0 +1,104 @@
+package edu.kit.kastel.game;
+
+import edu.kit.kastel.game.storage.PackedColorGrid;
+import edu.kit.kastel.game.worldbuilder.Direction;
+
+import java.util.List;
+
+/**
+ * The simulation engine for worlds whose ants follow a rule other than Langton's ant, stored in a
+ * {@link PackedColorGrid}. Every move reads the color of a tile, takes its transition from the table of the rule
+ * in a single lookup and paints the tile, without any branches on colors, turns or states.
+ * Several ants move one after another in every step, in the order of the list.
+ *
+ * @author uwwfh
+ */
+final class TurmiteEngine implements SimulationEngine {
+
+    private final World world;
+    private final PackedColorGrid grid;
+    private final List<Ant> ants;
+    private final int[] transitions;
+    private final int colorCount;
+    private final TileTally tally;
+
+    /**
+     * Creates a new engine.
+     * @param world The world to simulate.
+     * @param grid The grid holding the colors of the tiles of the world.
+     * @param ants The ants roaming the world, in the order they move in.
+     * @param rule The rule the ants follow.
+     */
+    TurmiteEngine(World world, PackedColorGrid grid, List<Ant> ants, TurmiteRule rule) {
+        this.world = world;
+        this.grid = grid;
+        this.ants = ants;
+        this.transitions = rule.getTransitions();
+        this.colorCount = rule.getColorCount();
+        this.tally = world.getTally();
+    }
+
+    @Override
+    public long advance(long steps) {
+        if (world.isAntOutOfBounds()) {
+            return 0;
+        }
+        return ants.size() == 1 ? walk(ants.get(0), steps) : walkAll(steps);
+    }
+
+    /**
+     * Moves a single ant the given amount of steps, stopping early if it leaves the world.
+     * The state of the ant is held in local primitives for the entire run and only written back once.
+     * @param ant The ant.
+     * @param steps The amount of steps to perform, must be non-negative.
+     * @return The amount of steps that were actually performed, including the one leaving the world.
+     */
+    private long walk(Ant ant, long steps) {
+        int x = ant.getX();
+        int y = ant.getY();
+        int direction = ant.getDirectionOrdinal();
+        int state = ant.getRuleState();
+        long step = 0;
+        while (step < steps) {
+            int nextX = x + Direction.deltaX(direction);
+            int nextY = y + Direction.deltaY(direction);
+            if (!grid.contains(nextX, nextY)) {
+                break;
+            }
+            x = nextX;
+            y = nextY;
+            int color = grid.getColor(x, y);
+            int transition = transitions[(state * colorCount + color) << TurmiteRule.DIRECTION_BITS | direction];
+            int painted = TurmiteRule.paintedColor(transition);
+            grid.setColor(x, y, painted);
+            tally.paint(x, y, color, painted);
+            direction = TurmiteRule.nextDirection(transition);
+            state = TurmiteRule.nextState(transition);
+            ++step;
+        }
+        ant.setRuleState(state);
+        return SimulationEngine.finishWalk(ant, x, y, direction, step, step < steps);
+    }
+
+    /**
+     * Moves all ants inside the world the given amount of steps, one after another in every step, stopping early
+     * once all of them left the world.
+     * @param steps The amount of steps to perform, must be non-negative.
+     * @return The amount of steps that were actually performed, including the one the last ant left the world in.
+     */
+    private long walkAll(long steps) {
+        long step = 0;
+        boolean anyInside = true;
+        while (step < steps && anyInside) {
+            anyInside = false;
+            for (Ant ant : ants) {
+                if (grid.contains(ant.getX(), ant.getY())) {
+                    walk(ant, 1);
+                    anyInside |= grid.contains(ant.getX(), ant.getY());
+                }
+            }
+            ++step;
+        }
+        return step;
+    }
+}
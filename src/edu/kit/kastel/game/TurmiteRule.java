@@ -0,0 +1,281 @@
+package edu.kit.kastel.game;
+
+import edu.kit.kastel.game.worldbuilder.Direction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The rule an ant follows, a turmite: in every state, the color of the tile the ant moves onto determines the color
+ * the tile is painted with, how the ant turns and which state it changes to. Tiles outside the world are white,
+ * color 0, and are never painted.
+ * A rule is given either as a string of turns, one per color, such as {@code RL} for Langton's ant or
+ * {@code LLRR}, in which the ant has a single state and advances the color of every tile it moves onto to the next
+ * one. The turns are {@code L} (left), {@code R} (right), {@code N} (none) and {@code U} (u-turn).
+ * Or a rule is given as a full state table in the notation of Golly, {@code {{{1, 2, 0}, {0, 8, 0}}}} for
+ * Langton's ant, listing for each state and each color the color to paint, the turn and the next state, where
+ * the turns are 1 (none), 2 (right), 4 (u-turn) and 8 (left).
+ * The rule is compiled into a transition table, so a move takes a single table lookup.
+ *
+ * @author uwwfh
+ */
+public final class TurmiteRule {
+
+    /**
+     * The rule of Langton's ant, which turns right on white and left on black tiles and inverts them.
+     */
+    public static final TurmiteRule LANGTON = parse("RL");
+    /**
+     * The color of white tiles, which all tiles outside the world have.
+     */
+    static final int WHITE = 0;
+    /**
+     * The amount of low bits of a transition table index that hold the direction ordinal.
+     */
+    static final int DIRECTION_BITS = 2;
+    private static final int MAX_STATES = 256;
+    private static final int MIN_COLORS = 2;
+    private static final int DIRECTION_SHIFT = 8;
+    private static final int STATE_SHIFT = 16;
+    private static final int COLOR_MASK = (1 << DIRECTION_SHIFT) - 1;
+    private static final int DIRECTION_MASK = (1 << DIRECTION_BITS) - 1;
+    private static final String TURN_LETTERS = "NRUL";
+    private static final int[] GOLLY_TURNS = {1, 2, 4, 8};
+    private static final char TABLE_START = '{';
+    private static final String TABLE_OPEN = "{{{";
+    private static final String TABLE_CLOSE = "}}}";
+    private static final String STATE_SEPARATOR = "}},{{";
+    private static final String COLOR_SEPARATOR = "},{";
+    private static final String NUMBER_SEPARATOR = ",";
+    private static final int ENTRY_LENGTH = 3;
+    private static final String ERROR_COLOR_COUNT = "a rule needs between %d and %d colors, but has %d.";
+    private static final String ERROR_STATE_COUNT = "a rule needs between 1 and %d states, but has %d.";
+    private static final String ERROR_TURN_LETTER = "invalid turn '%c' in rule '%s', expected one of %s.";
+    private static final String ERROR_TABLE = "the state table '%s' is malformed.";
+    private static final String ERROR_ENTRY = "invalid entry {%s} in the state table, expected {color, turn, state}.";
+
+    private final String name;
+    private final int colorCount;
+    private final int stateCount;
+    private final int[] transitions;
+
+    /**
+     * Creates a new rule from its entries.
+     * @param name The rule as it was given.
+     * @param colorCount The amount of colors.
+     * @param entries The entry of every state and color, at state * colors + color, each holding the color to paint,
+     *                the amount of clockwise quarter turns and the next state.
+     */
+    private TurmiteRule(String name, int colorCount, int[][] entries) {
+        this.name = name;
+        this.colorCount = colorCount;
+        this.stateCount = entries.length / colorCount;
+        this.transitions = new int[entries.length << DIRECTION_BITS];
+        for (int index = 0; index < entries.length; ++index) {
+            int[] entry = entries[index];
+            for (int direction = 0; direction <= DIRECTION_MASK; ++direction) {
+                int turned = direction;
+                for (int quarter = 0; quarter < entry[1]; ++quarter) {
+                    turned = Direction.clockwiseNext(turned);
+                }
+                transitions[index << DIRECTION_BITS | direction] = entry[0] | turned << DIRECTION_SHIFT | entry[2] << STATE_SHIFT;
+            }
+        }
+    }
+
+    /**
+     * Parses a rule, either a string of turns or a state table.
+     * @param rule The rule.
+     * @return The parsed rule.
+     * @throws IllegalArgumentException if the rule is malformed or has too few or too many colors or states.
+     */
+    public static TurmiteRule parse(String rule) {
+        String compact = rule.replace(" ", "");
+        return compact.indexOf(TABLE_START) == 0 ? parseTable(rule, compact) : parseTurns(rule);
+    }
+
+    /**
+     * Gets the amount of colors of the rule.
+     * @return The amount of colors.
+     */
+    public int getColorCount() {
+        return colorCount;
+    }
+
+    /**
+     * Gets the amount of states of the rule.
+     * @return The amount of states.
+     */
+    public int getStateCount() {
+        return stateCount;
+    }
+
+    /**
+     * If this rule is the rule of Langton's ant, which the specialized engines and backends simulate.
+     * @return true if this is Langton's ant, false if not.
+     */
+    public boolean isLangton() {
+        return this == LANGTON || Arrays.equals(transitions, LANGTON.transitions);
+    }
+
+    /**
+     * Gets the transition for an ant in the given state facing the given direction that moved onto a tile of the
+     * given color. Unpack it with {@link #paintedColor(int)}, {@link #nextDirection(int)} and {@link #nextState(int)}.
+     * @param state The state of the ant.
+     * @param color The color of the tile.
+     * @param direction The direction ordinal of the ant.
+     * @return The packed transition.
+     */
+    int transition(int state, int color, int direction) {
+        return transitions[(state * colorCount + color) << DIRECTION_BITS | direction];
+    }
+
+    /**
+     * Gets the transition table, indexed by {@code (state * colors + color) << 2 | direction}.
+     * The array is shared and must not be modified.
+     * @return The transition table.
+     */
+    int[] getTransitions() {
+        return transitions;
+    }
+
+    /**
+     * Gets the color a transition paints the tile with.
+     * @param transition The packed transition.
+     * @return The color.
+     */
+    static int paintedColor(int transition) {
+        return transition & COLOR_MASK;
+    }
+
+    /**
+     * Gets the direction ordinal of the ant after a transition.
+     * @param transition The packed transition.
+     * @return The direction ordinal.
+     */
+    static int nextDirection(int transition) {
+        return transition >>> DIRECTION_SHIFT & DIRECTION_MASK;
+    }
+
+    /**
+     * Gets the state of the ant after a transition.
+     * @param transition The packed transition.
+     * @return The state.
+     */
+    static int nextState(int transition) {
+        return transition >>> STATE_SHIFT;
+    }
+
+    /**
+     * Parses a string of turns, one per color, into a rule with a single state.
+     * @param rule The string of turns.
+     * @return The parsed rule.
+     * @throws IllegalArgumentException if a turn is invalid or there are too few or too many colors.
+     */
+    private static TurmiteRule parseTurns(String rule) {
+        checkColorCount(rule.length());
+        int[][] entries = new int[rule.length()][];
+        for (int color = 0; color < rule.length(); ++color) {
+            int quarters = TURN_LETTERS.indexOf(rule.charAt(color));
+            if (quarters < 0) {
+                throw new IllegalArgumentException(ERROR_TURN_LETTER.formatted(rule.charAt(color), rule, TURN_LETTERS));
+            }
+            entries[color] = new int[] {(color + 1) % rule.length(), quarters, 0};
+        }
+        return new TurmiteRule(rule, rule.length(), entries);
+    }
+
+    /**
+     * Parses a state table in the notation of Golly.
+     * @param rule The state table as it was given.
+     * @param compact The state table without spaces.
+     * @return The parsed rule.
+     * @throws IllegalArgumentException if the table is malformed or has too few or too many colors or states.
+     */
+    private static TurmiteRule parseTable(String rule, String compact) {
+        if (!compact.startsWith(TABLE_OPEN) || !compact.endsWith(TABLE_CLOSE) || compact.length() < TABLE_OPEN.length() * 2) {
+            throw new IllegalArgumentException(ERROR_TABLE.formatted(rule));
+        }
+        String[] states = split(compact.substring(TABLE_OPEN.length(), compact.length() - TABLE_CLOSE.length()),
+                STATE_SEPARATOR);
+        if (states.length > MAX_STATES) {
+            throw new IllegalArgumentException(ERROR_STATE_COUNT.formatted(MAX_STATES, states.length));
+        }
+        int colorCount = split(states[0], COLOR_SEPARATOR).length;
+        checkColorCount(colorCount);
+        int[][] entries = new int[states.length * colorCount][];
+        for (int state = 0; state < states.length; ++state) {
+            String[] colors = split(states[state], COLOR_SEPARATOR);
+            if (colors.length != colorCount) {
+                throw new IllegalArgumentException(ERROR_TABLE.formatted(rule));
+            }
+            for (int color = 0; color < colorCount; ++color) {
+                entries[state * colorCount + color] = parseEntry(colors[color], colorCount, states.length);
+            }
+        }
+        return new TurmiteRule(rule, colorCount, entries);
+    }
+
+    /**
+     * Parses an entry of a state table, converting its turn into clockwise quarter turns.
+     * @param entry The entry without its braces.
+     * @param colorCount The amount of colors of the table.
+     * @param stateCount The amount of states of the table.
+     * @return The color to paint, the amount of clockwise quarter turns and the next state.
+     * @throws IllegalArgumentException if the entry is malformed.
+     */
+    private static int[] parseEntry(String entry, int colorCount, int stateCount) {
+        String[] numbers = split(entry, NUMBER_SEPARATOR);
+        if (numbers.length != ENTRY_LENGTH) {
+            throw new IllegalArgumentException(ERROR_ENTRY.formatted(entry));
+        }
+        int[] parsed = new int[ENTRY_LENGTH];
+        try {
+            for (int i = 0; i < ENTRY_LENGTH; ++i) {
+                parsed[i] = Integer.parseInt(numbers[i]);
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(ERROR_ENTRY.formatted(entry));
+        }
+        int quarters = Arrays.binarySearch(GOLLY_TURNS, parsed[1]);
+        if (parsed[0] < 0 || parsed[0] >= colorCount || quarters < 0 || parsed[2] < 0 || parsed[2] >= stateCount) {
+            throw new IllegalArgumentException(ERROR_ENTRY.formatted(entry));
+        }
+        parsed[1] = quarters;
+        return parsed;
+    }
+
+    /**
+     * Checks that a rule has as many colors as the tiles can hold and the world files can represent.
+     * @param colorCount The amount of colors.
+     * @throws IllegalArgumentException if there are too few or too many colors.
+     */
+    private static void checkColorCount(int colorCount) {
+        if (colorCount < MIN_COLORS || colorCount > TileCharacters.COLOR_COUNT) {
+            throw new IllegalArgumentException(ERROR_COLOR_COUNT.formatted(MIN_COLORS, TileCharacters.COLOR_COUNT, colorCount));
+        }
+    }
+
+    /**
+     * Splits the given text around every occurrence of the given literal separator, keeping empty parts.
+     * @param text The text.
+     * @param separator The separator.
+     * @return The parts of the text.
+     */
+    private static String[] split(String text, String separator) {
+        List<String> parts = new ArrayList<>();
+        int start = 0;
+        for (int end = text.indexOf(separator); end >= 0; end = text.indexOf(separator, start)) {
+            parts.add(text.substring(start, end));
+            start = end + separator.length();
+        }
+        parts.add(text.substring(start));
+        return parts.toArray(String[]::new);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
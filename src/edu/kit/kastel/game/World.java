@@ -1,118 +1,314 @@
 package edu.kit.kastel.game;
 
+import edu.kit.kastel.game.storage.BitGrid;
+import edu.kit.kastel.game.storage.TileStore;
 import edu.kit.kastel.game.worldbuilder.Coordinate;
 import edu.kit.kastel.game.worldbuilder.Direction;
-import edu.kit.kastel.game.worldbuilder.TileColor;
 
-import java.util.HashMap;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.Optional;
 
 /**
  * The world map, AKA coordinate grid.
+ * Every direction character of the map creates an ant. In every step, the ants inside the world move once each,
+ * in the order they appear in the map, line by line.
+ * An infinite world extends beyond its map in every direction, its width and height remain those of the map.
  *
  * @author uwwfh
  */
 public class World {
 
-    private static final TileColor DEFAULT_COLOR = TileColor.WHITE;
-    private static final Map<TileColor, Character> CHARACTER_REPR = Map.of(
-            TileColor.WHITE, '0',
-            TileColor.BLACK, '1'
-    );
-    private static final Map<Character, TileColor> TILE_FROM_CHAR_REPR = Map.of(
-            '0', TileColor.WHITE,
-            '1', TileColor.BLACK
-    );
-
-    private final Map<Coordinate, TileColor> worldMap;
+    private static final String ERROR_INVALID_PATH = "an invalid path has been passed!";
+    private static final String ERROR_WRITE_FAILED = "could not write to '%s'.";
+    private static final String ERROR_SNAPSHOT_INFINITE = "snapshots of infinite worlds are not supported.";
+    private static final String ERROR_SNAPSHOT_RULE = "snapshots are only supported for Langton's ant.";
+    private static final String ERROR_BACKEND_RULE = "the %s backend only supports Langton's ant.";
+
+    private final TileStore tiles;
     private final int width;
     private final int height;
-    private final Ant ant;
+    private final List<Ant> ants;
+    private final SimulationEngine engine;
+    private final WorldBackend backend;
+    private final TurmiteRule rule;
+    private final TileTally tally;
+    private final Timeline timeline;
 
     /**
-     * Creates a new world and parses the world contents.
+     * Creates a new world and parses the world contents, storing the tiles in a dense grid.
      * @param worldContents The lines that will construct the world. All should be the same length.
      */
     public World(List<String> worldContents) {
-        worldMap = new HashMap<>();
-        Ant ant = null;
-
-        // Since there is always an ant, width and height are always >= 1.
-        // Also, list entries and their length are always >= 1, and we can assume all lengths are the same.
-        height = worldContents.size();
-        width = worldContents.get(0).length();
-
-        Coordinate currentHead = new Coordinate(0, 0);
-        for (String line : worldContents) {
-            char character;
-            for (int i = 0; i < line.length(); ++i) {
-                character = line.charAt(i);
-
-                Optional<Direction> directionOptional = Direction.parseAny(character);
-                if (directionOptional.isPresent()) {
-                    ant = new Ant(this, currentHead, directionOptional.get());
-                    worldMap.put(currentHead.copy(), DEFAULT_COLOR);
-                } else {
-                    worldMap.put(currentHead.copy(), TILE_FROM_CHAR_REPR.get(character));
-                }
-                currentHead.add(Coordinate.RIGHT);
+        this(worldContents, WorldBackend.DENSE);
+    }
+
+    /**
+     * Creates a new world and parses the world contents.
+     * @param worldContents The lines that will construct the world. All should be the same length.
+     * @param backend The backend to store the tiles in.
+     */
+    public World(List<String> worldContents, WorldBackend backend) {
+        this(WorldLayout.parse(worldContents), backend, TurmiteRule.LANGTON, 0);
+    }
+
+    /**
+     * Creates a new world from its parsed contents.
+     * @param layout The parsed contents of the world, a grid of black and white tiles for Langton's ant.
+     * @param backend The backend to store the tiles in, only used for Langton's ant.
+     * @param rule The rule the ants follow.
+     * @param stepCount The amount of steps already performed in the world.
+     */
+    World(WorldLayout layout, WorldBackend backend, TurmiteRule rule, long stepCount) {
+        this.backend = backend;
+        this.rule = rule;
+        this.width = layout.tiles().getWidth();
+        this.height = layout.tiles().getHeight();
+        this.tiles = layout.tiles() instanceof BitGrid grid ? backend.createStore(grid) : layout.tiles();
+        this.tally = new TileTally(tiles);
+        List<Ant> placedAnts = new ArrayList<>(layout.ants().size());
+        for (WorldLayout.AntPlacement placement : layout.ants()) {
+            placedAnts.add(new Ant(this, new Coordinate(placement.x(), placement.y()), placement.direction()));
+            if (isInside(placement.x(), placement.y())) {
+                tally.visit(placement.x(), placement.y());
             }
-            currentHead.setX(0);
-            currentHead.add(Coordinate.DOWN);
         }
-        // As given per the task, we have exactly one ant. No more, no less.
-        this.ant = ant;
+        this.ants = Collections.unmodifiableList(placedAnts);
+        this.engine = SimulationEngine.create(this, tiles, ants, rule);
+        this.timeline = new Timeline(this, engine, stepCount);
+    }
+
+    /**
+     * Loads a world from the file at the given path. The file is memory-mapped and scanned in a single pass,
+     * validating that all lines have the same width and that there is an ant. Rules other than Langton's ant
+     * keep the colors of the tiles in a packed dense grid, so they only support the dense and automatic backend.
+     * @param path The path to the world file.
+     * @param backend The backend to store the tiles in.
+     * @param rule The rule the ants follow.
+     * @return The loaded world.
+     * @throws IllegalArgumentException if an invalid path has been passed, the file is not a valid world or the
+     *         backend does not support the rule.
+     */
+    public static World load(String path, WorldBackend backend, TurmiteRule rule) {
+        if (!rule.isLangton() && backend != WorldBackend.DENSE && backend != WorldBackend.AUTOMATIC) {
+            throw new IllegalArgumentException(ERROR_BACKEND_RULE.formatted(backend));
+        }
+        try {
+            return new World(MappedWorldLoader.load(Path.of(path), rule), backend, rule, 0);
+        } catch (IOException | InvalidPathException e) {
+            throw new IllegalArgumentException(ERROR_INVALID_PATH);
+        }
+    }
+
+    /**
+     * Restores a world from the snapshot at the given path. Snapshots only hold worlds of Langton's ant.
+     * @param path The path to the snapshot.
+     * @param backend The backend to store the tiles in.
+     * @param rule The rule the ants of the restored world are to follow.
+     * @return The restored world.
+     * @throws IllegalArgumentException if an invalid path has been passed, the file is not a valid snapshot or
+     *         the rule is not Langton's ant.
+     */
+    public static World loadSnapshot(String path, WorldBackend backend, TurmiteRule rule) {
+        if (!rule.isLangton()) {
+            throw new IllegalArgumentException(ERROR_SNAPSHOT_RULE);
+        }
+        try {
+            return WorldSnapshot.read(Path.of(path), backend);
+        } catch (IOException | InvalidPathException e) {
+            throw new IllegalArgumentException(ERROR_INVALID_PATH);
+        }
+    }
+
+    /**
+     * Saves a snapshot of this world to the given path, replacing any existing file.
+     * @param path The path to save the snapshot to.
+     * @param compression The compression of the tile payload.
+     * @throws IllegalArgumentException if the snapshot could not be written to the given path, the world is infinite
+     *         or its rule is not Langton's ant.
+     */
+    public void saveSnapshot(String path, SnapshotCompression compression) {
+        if (backend == WorldBackend.INFINITE) {
+            throw new IllegalArgumentException(ERROR_SNAPSHOT_INFINITE);
+        }
+        if (!rule.isLangton()) {
+            throw new IllegalArgumentException(ERROR_SNAPSHOT_RULE);
+        }
+        try {
+            WorldSnapshot.write(this, Path.of(path), compression);
+        } catch (IOException | InvalidPathException e) {
+            throw new IllegalArgumentException(ERROR_WRITE_FAILED.formatted(path));
+        }
     }
 
     /**
-     * Gets the ant of the world. There only ever is exactly one (1) ant.
-     * @return The ant that roams this world.
+     * Gets the first ant of the world, which is the only one in worlds with a single ant.
+     * @return The first ant that roams this world.
      */
     public Ant getAnt() {
-        return ant;
+        return ants.get(0);
+    }
+
+    /**
+     * Gets all ants of the world, in the order they move in.
+     * @return An unmodifiable list of the ants that roam this world.
+     */
+    public List<Ant> getAnts() {
+        return ants;
+    }
+
+    /**
+     * Advances the simulation by the given amount of steps, in each of which every ant inside the world moves once.
+     * Stops early once every ant has left the world.
+     * @param steps The amount of steps to perform, must be non-negative.
+     * @return The amount of steps that were actually performed, including the one the last ant left the world in.
+     */
+    public long advance(long steps) {
+        return timeline.advance(steps);
+    }
+
+    /**
+     * Gets the amount of steps performed in this world so far.
+     * @return The step count.
+     */
+    public long getStepCount() {
+        return timeline.getStepCount();
+    }
+
+    /**
+     * Gets the timeline of this world, which rewinds and seeks its steps.
+     * @return The timeline.
+     */
+    public Timeline getTimeline() {
+        return timeline;
+    }
+
+    /**
+     * Gets the backend this world was created with. For the automatic backend, the choice is made anew for
+     * every world created with it.
+     * @return The backend.
+     */
+    public WorldBackend getBackend() {
+        return backend;
+    }
+
+    /**
+     * Gets the rule the ants of this world follow.
+     * @return The rule.
+     */
+    public TurmiteRule getRule() {
+        return rule;
+    }
+
+    /**
+     * Gets the tally of the black tiles of this world and the tiles its ants have been on since it was created or loaded.
+     * @return The tally.
+     */
+    public TileTally getTally() {
+        return tally;
+    }
+
+    /**
+     * Gets the store holding the tiles of this world.
+     * @return The tile store.
+     */
+    TileStore getTiles() {
+        return tiles;
+    }
+
+    /**
+     * Gets the width of the world.
+     * @return The width.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the height of the world.
+     * @return The height.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the color of the tile at the given position. Returns white if the position is outside the world.
+     * @param x The x position.
+     * @param y The y position.
+     * @return The color of the tile, 0 for white.
+     */
+    int getColor(int x, int y) {
+        return isInside(x, y) ? tiles.getColor(x, y) : TurmiteRule.WHITE;
+    }
+
+    /**
+     * Inverts the tile at the given position, which must be inside the world.
+     * @param x The x position.
+     * @param y The y position.
+     * @return true if the tile was black before, false if it was white.
+     */
+    boolean flip(int x, int y) {
+        boolean wasBlack = tiles.flip(x, y);
+        tally.flip(x, y, wasBlack);
+        return wasBlack;
     }
 
     /**
-     * Gets the color of the given Coordinate. Returns the default color if the
-     * coordinate is not tracked yet.
-     * Note that the worldMap will not begin tracking a tile until it is set with
-     * the setColor(Coordinate, TileColor) method.
-     * @param coordinate The location.
-     * @return The tile color or default color.
+     * Applies the rule of the world to an ant that moved onto the tile at the given position, which must be inside
+     * the world, painting the tile.
+     * @param x The x position.
+     * @param y The y position.
+     * @param state The rule state of the ant.
+     * @param direction The direction ordinal of the ant.
+     * @return The packed transition of the rule, holding the next direction and state of the ant.
      */
-    TileColor getColor(final Coordinate coordinate) {
-        return worldMap.getOrDefault(coordinate, DEFAULT_COLOR);
+    int applyRule(int x, int y, int state, int direction) {
+        int color = tiles.getColor(x, y);
+        int transition = rule.transition(state, color, direction);
+        tiles.setColor(x, y, TurmiteRule.paintedColor(transition));
+        tally.paint(x, y, color, TurmiteRule.paintedColor(transition));
+        return transition;
     }
 
     /**
-     * Sets (and then tracks) the tile color at the specified coordinate location.
-     * Tracking simply means getColor(...) will return the color previously set with setColor(...).
-     * @param coordinate The location.
-     * @param tileColor The tile color.
+     * If the given position is inside the bounds of the world.
+     * @param x The x position.
+     * @param y The y position.
+     * @return true if the position is inside the world, false if not.
      */
-    void setColor(final Coordinate coordinate, final TileColor tileColor) {
-        worldMap.put(coordinate, tileColor);
+    boolean isInside(int x, int y) {
+        return tiles.contains(x, y);
     }
 
     /**
-     * If the ant is outside the bounds of the world.
-     * @return true if the ant is out of bounds, false if not.
+     * If every ant is outside the bounds of the world, which ends the simulation.
+     * @return true if all ants are out of bounds, false if not.
      */
     public boolean isAntOutOfBounds() {
-        return isOutOfBounds(ant.getLocation());
+        for (Ant ant : ants) {
+            if (isInside(ant.getX(), ant.getY())) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
-     * If the given coordinate is outside the bounds of the world.
+     * If the given coordinate is inside the bounds of the world. An infinite world has no bounds but the
+     * range of its tile store.
      * @param coordinate The coordinate.
-     * @return true if out of bounds, false if not.
+     * @return true if inside the world, false if out of bounds.
      */
-    private boolean isOutOfBounds(Coordinate coordinate) {
-        // <= because of 0-based indexing
-        return coordinate.getX() < 0 || coordinate.getX() >= this.width
-                || coordinate.getY() < 0 || coordinate.getY() >= this.height;
+    public boolean contains(Coordinate coordinate) {
+        return isInside(coordinate.getX(), coordinate.getY());
     }
 
     /**
@@ -122,29 +318,79 @@ private boolean isOutOfBounds(Coordinate coordinate) {
      * @return The char value of the coordinate.
      */
     public Character asCharacter(Coordinate coordinate) {
-        TileColor color = getColor(coordinate);
-        if (ant.getLocation().equals(coordinate)) {
-            char character = Direction.toChar(ant.getDirection());
-            return color == TileColor.BLACK ? character : Character.toLowerCase(character);
+        // If several ants share a tile, the one moving last is shown.
+        for (int i = ants.size() - 1; i >= 0; --i) {
+            Ant ant = ants.get(i);
+            if (ant.getX() == coordinate.getX() && ant.getY() == coordinate.getY()) {
+                return antCharacter(ant);
+            }
         }
-        return CHARACTER_REPR.get(color);
+        return TileCharacters.of(getColor(coordinate.getX(), coordinate.getY()));
+    }
+
+    /**
+     * Gets the characters of many fields at once, in the given order, each exactly as {@link #asCharacter} would.
+     * @param xs The x positions of the fields.
+     * @param ys The y positions of the fields, as many as x positions.
+     * @return The characters of the fields.
+     */
+    public char[] asCharacters(int[] xs, int[] ys) {
+        return FieldLookup.lookup(this, xs, ys);
+    }
+
+    /**
+     * Gets the character of the given ant, uppercase on black or otherwise colored and lowercase on white tiles.
+     * @param ant The ant.
+     * @return The character of the ant.
+     */
+    char antCharacter(Ant ant) {
+        char character = Direction.toChar(ant.getDirection());
+        return getColor(ant.getX(), ant.getY()) != TurmiteRule.WHITE ? character : Character.toLowerCase(character);
+    }
+
+    /**
+     * Prints the entire world map, line by line, each line followed by a line separator.
+     * The rows are rendered straight from the tile store into the stream, so no string of the world is built.
+     * @param out The stream to print to. It is flushed afterwards.
+     * @throws IOException if writing to the stream failed.
+     */
+    public void print(OutputStream out) throws IOException {
+        new WorldRenderer(out).render(this, 0, 0, width, height);
+    }
+
+    /**
+     * Prints the rectangular region of the world spanned by the given corners, line by line, each line followed
+     * by a line separator. Both corners must be inside the world, and the first one must be the north-west one.
+     * @param out The stream to print to. It is flushed afterwards.
+     * @param from The north-west corner of the region, inclusive.
+     * @param to The south-east corner of the region, inclusive.
+     * @throws IOException if writing to the stream failed.
+     */
+    public void print(OutputStream out, Coordinate from, Coordinate to) throws IOException {
+        new WorldRenderer(out).render(this, from.getX(), from.getY(), to.getX() + 1, to.getY() + 1);
+    }
+
+    /**
+     * Prints a down-sampled overview of the world, in which each character summarizes the density of black tiles
+     * of a block of scale x scale tiles, from '0' for only white to '9' for only black tiles.
+     * @param out The stream to print to. It is flushed afterwards.
+     * @param scale The side length of a block, must be positive.
+     * @throws IOException if writing to the stream failed.
+     */
+    public void printOverview(OutputStream out, int scale) throws IOException {
+        new WorldRenderer(out).renderOverview(this, scale);
     }
 
     @Override
     public String toString() {
-        StringBuilder builder = new StringBuilder();
-        Coordinate writeHead = new Coordinate(0, 0);
-        for (int y = 0; y < height; ++y) {
-            for (int x = 0; x < width; ++x) {
-                builder.append(asCharacter(writeHead));
-                writeHead.add(Coordinate.RIGHT);
-            }
-            if (y < height - 1) {
-                builder.append(System.lineSeparator());
-            }
-            writeHead.setX(0);
-            writeHead.add(Coordinate.DOWN);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            print(out);
+        } catch (IOException e) {
+            // Writing to a byte array never fails.
+            throw new UncheckedIOException(e);
         }
-        return builder.toString();
+        String rendered = out.toString(StandardCharsets.US_ASCII);
+        return rendered.substring(0, rendered.length() - System.lineSeparator().length());
     }
 }
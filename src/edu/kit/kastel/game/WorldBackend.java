@@ -0,0 +1,80 @@
+package edu.kit.kastel.game;
+
+import edu.kit.kastel.game.storage.BitGrid;
+import edu.kit.kastel.game.storage.ChunkedTileStore;
+import edu.kit.kastel.game.storage.MacroCellStore;
+import edu.kit.kastel.game.storage.SparseTileStore;
+import edu.kit.kastel.game.storage.TileStore;
+
+import java.util.Optional;
+
+/**
+ * The storage backends a world can keep its tiles in.
+ *
+ * @author uwwfh
+ */
+public enum WorldBackend {
+
+    /**
+     * A dense grid storing one bit per tile.
+     */
+    DENSE("dense"),
+    /**
+     * A quadtree of canonicalized macro-cells, simulated with memoized results per cell.
+     */
+    MACRO_CELL("macrocell"),
+    /**
+     * An unbounded world of lazily allocated chunks, whose ants never leave it. Cold chunks are evicted to disk.
+     */
+    INFINITE("infinite"),
+    /**
+     * A bounded world storing only the positions of its black tiles, in a hash set.
+     */
+    SPARSE("sparse"),
+    /**
+     * A choice between the dense and the sparse backend, made for each loaded map by its size and density.
+     */
+    AUTOMATIC("auto");
+
+    private final String name;
+
+    WorldBackend(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Attempts to parse a backend from its name. If there is no backend with that name,
+     * returns an empty optional.
+     * @param name The name of the backend.
+     * @return Optional of the backend or empty.
+     */
+    public static Optional<WorldBackend> parse(String name) {
+        for (WorldBackend backend : values()) {
+            if (backend.name.equals(name)) {
+                return Optional.of(backend);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Creates the store for the tiles of the given grid in this backend. The automatic backend chooses between
+     * the dense and the sparse store by the size and density of the grid.
+     * @param grid The grid holding the tiles of the world, which the dense backend uses as is.
+     * @return The tile store.
+     */
+    TileStore createStore(BitGrid grid) {
+        return switch (this) {
+            case MACRO_CELL -> new MacroCellStore(grid, MacroCellStore.DEFAULT_CANONICAL_CAPACITY);
+            case INFINITE -> new ChunkedTileStore(grid, ChunkedTileStore.DEFAULT_RESIDENT_CHUNKS);
+            case SPARSE -> new SparseTileStore(grid);
+            case AUTOMATIC -> SparseTileStore.isPreferable(grid) ? new SparseTileStore(grid) : grid;
+            case DENSE -> grid;
+        };
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,58 @@
+package edu.kit.kastel.game;
+
+import edu.kit.kastel.game.storage.BitGrid;
+import edu.kit.kastel.game.storage.TileStore;
+import edu.kit.kastel.game.worldbuilder.Direction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The parsed contents of a world, before a backend and engine are chosen for it.
+ *
+ * @param tiles The tiles of the world, a {@link BitGrid} of black tiles for Langton's ant and a packed color grid
+ *              for other rules.
+ * @param ants The ants of the world, in the order they move in.
+ * @author uwwfh
+ */
+record WorldLayout(TileStore tiles, List<AntPlacement> ants) {
+
+    private static final char BLACK_CHARACTER = '1';
+
+    /**
+     * Parses the world contents into a grid.
+     * @param worldContents The lines that will construct the world.
+     * @return The parsed contents of the world.
+     */
+    static WorldLayout parse(List<String> worldContents) {
+        // Since there is always an ant, width and height are always >= 1.
+        // Also, list entries and their length are always >= 1, and we can assume all lengths are the same.
+        BitGrid grid = new BitGrid(worldContents.get(0).length(), worldContents.size());
+        List<AntPlacement> ants = new ArrayList<>();
+        for (int y = 0; y < worldContents.size(); ++y) {
+            String line = worldContents.get(y);
+            for (int x = 0; x < line.length(); ++x) {
+                char character = line.charAt(x);
+                Optional<Direction> directionOptional = Direction.parseAny(character);
+                if (directionOptional.isPresent()) {
+                    ants.add(new AntPlacement(x, y, directionOptional.get()));
+                } else if (character == BLACK_CHARACTER && grid.contains(x, y)) {
+                    grid.set(x, y, true);
+                }
+            }
+        }
+        // As given per the task, there is at least one ant.
+        return new WorldLayout(grid, List.copyOf(ants));
+    }
+
+    /**
+     * The starting state of an ant.
+     *
+     * @param x The x position of the ant.
+     * @param y The y position of the ant.
+     * @param direction The direction of the ant.
+     */
+    record AntPlacement(int x, int y, Direction direction) {
+    }
+}
@@ -0,0 +1,288 @@
+package edu.kit.kastel.game;
+
+import edu.kit.kastel.game.storage.TileStore;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Renders rectangular regions of a world as rows of characters into an output stream.
+ * The rows are produced 64 tiles at a time straight from the words of the tile store into a large byte buffer,
+ * which is handed to the output stream whenever it is full. Neither the whole rendering nor any per-tile
+ * objects are ever created, so worlds of any size can be printed.
+ *
+ * @author uwwfh
+ */
+final class WorldRenderer {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+    private static final byte WHITE_CHARACTER = '0';
+    private static final byte BLACK_CHARACTER = '9';
+    private static final int MIXED_DENSITY_LEVELS = 8;
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int[] antXs;
+    private int[] antYs;
+    private byte[] antCharacters;
+    private int nextAnt;
+
+    /**
+     * Creates a new renderer.
+     * @param out The stream to render into.
+     */
+    WorldRenderer(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Renders the given region of the world, every row followed by a line separator, and flushes the stream.
+     * @param world The world.
+     * @param minX The x position of the left column, inclusive.
+     * @param minY The y position of the top row, inclusive.
+     * @param maxX The x position of the right column, exclusive.
+     * @param maxY The y position of the bottom row, exclusive.
+     * @throws IOException if writing to the stream failed.
+     */
+    void render(World world, int minX, int minY, int maxX, int maxY) throws IOException {
+        TileStore tiles = world.getTiles();
+        boolean colored = world.getRule().getColorCount() > 2;
+        prepareAnts(world);
+        for (int y = minY; y < maxY; ++y) {
+            while (nextAnt < antYs.length && antYs[nextAnt] < y) {
+                ++nextAnt;
+            }
+            if (colored) {
+                renderColorRow(tiles, y, minX, maxX);
+            } else {
+                renderRow(tiles, y, minX, maxX);
+            }
+            endLine();
+        }
+        flushBuffer();
+        out.flush();
+    }
+
+    /**
+     * Renders a down-sampled overview of the world, every row followed by a line separator, and flushes the stream.
+     * Each character summarizes a block of scale x scale tiles by its density of black tiles, from '0' for
+     * only white tiles over '1' to '8' for increasing densities up to '9' for only black tiles.
+     * If the scale is a multiple of {@value TileTally#BLOCK_SIZE}, every block is summed from the blocks the
+     * {@link TileTally} keeps up to date, so the tiles are not read at all. Other scales cut through those blocks,
+     * so their blocks are counted one block row at a time with a population count per word, never per tile.
+     * @param world The world.
+     * @param scale The side length of a block, must be positive.
+     * @throws IOException if writing to the stream failed.
+     */
+    void renderOverview(World world, int scale) throws IOException {
+        TileStore tiles = world.getTiles();
+        int width = tiles.getWidth();
+        int height = tiles.getHeight();
+        long[] counts = new long[(int) ((width + (long) scale - 1) / scale)];
+        for (long minY = 0; minY < height; minY += scale) {
+            int maxY = (int) Math.min(height, minY + scale);
+            Arrays.fill(counts, 0);
+            if (scale % TileTally.BLOCK_SIZE == 0) {
+                countTalliedBlocks(world.getTally(), width, (int) minY, maxY, scale, counts);
+            } else {
+                for (int y = (int) minY; y < maxY; ++y) {
+                    countRow(tiles, y, scale, counts);
+                }
+            }
+            for (int column = 0; column < counts.length; ++column) {
+                long blockWidth = Math.min(width, (column + 1L) * scale) - (long) column * scale;
+                ensureCapacity(1);
+                buffer[position++] = densityCharacter(counts[column], blockWidth * (maxY - minY));
+            }
+            endLine();
+        }
+        flushBuffer();
+        out.flush();
+    }
+
+    /**
+     * Adds the tallied black tiles of the blocks of the given rows to the counts of the overview blocks they lie in.
+     * @param tally The tally of the world.
+     * @param width The width of the world.
+     * @param minY The y position of the top row, a multiple of the block size of the tally.
+     * @param maxY The y position of the bottom row, exclusive.
+     * @param scale The side length of an overview block, a multiple of the block size of the tally.
+     * @param counts The counts per overview block column.
+     */
+    private static void countTalliedBlocks(TileTally tally, int width, int minY, int maxY, int scale, long[] counts) {
+        int factor = scale / TileTally.BLOCK_SIZE;
+        int columns = (int) ((width + (long) TileTally.BLOCK_SIZE - 1) / TileTally.BLOCK_SIZE);
+        int rowEnd = (int) ((maxY + (long) TileTally.BLOCK_SIZE - 1) / TileTally.BLOCK_SIZE);
+        for (int row = minY / TileTally.BLOCK_SIZE; row < rowEnd; ++row) {
+            for (int column = 0; column < columns; ++column) {
+                counts[column / factor] += tally.getBlockBlackTiles(column, row);
+            }
+        }
+    }
+
+    /**
+     * Adds the black tiles of a row to the counts of the blocks they lie in.
+     * @param tiles The tile store.
+     * @param y The y position of the row.
+     * @param scale The side length of a block.
+     * @param counts The counts per block column.
+     */
+    private static void countRow(TileStore tiles, int y, int scale, long[] counts) {
+        int words = (int) ((tiles.getWidth() + (long) Long.SIZE - 1) / Long.SIZE);
+        for (int wordIndex = 0; wordIndex < words; ++wordIndex) {
+            int wordX = wordIndex * Long.SIZE;
+            long word = tiles.getWord(wordX, y);
+            if (wordX + Long.SIZE > tiles.getWidth()) {
+                // Stores reaching beyond their width pass the tiles there as well, which are not part of the map.
+                word &= (1L << (tiles.getWidth() - wordX)) - 1;
+            }
+            int firstBlock = wordX / scale;
+            int lastBlock = (wordX + Long.SIZE - 1) / scale;
+            if (word == 0) {
+                continue;
+            }
+            if (firstBlock == lastBlock) {
+                counts[firstBlock] += Long.bitCount(word);
+                continue;
+            }
+            for (int block = firstBlock; block <= lastBlock && block < counts.length; ++block) {
+                long from = Math.max(0, (long) block * scale - wordX);
+                long to = Math.min(Long.SIZE, (block + 1L) * scale - wordX);
+                long mask = (to == Long.SIZE ? -1L : (1L << to) - 1) & -1L << from;
+                counts[block] += Long.bitCount(word & mask);
+            }
+        }
+    }
+
+    /**
+     * Gets the character summarizing a block by its density of black tiles.
+     * @param black The amount of black tiles in the block.
+     * @param area The amount of tiles in the block.
+     * @return The density character.
+     */
+    private static byte densityCharacter(long black, long area) {
+        if (black == 0) {
+            return WHITE_CHARACTER;
+        }
+        if (black == area) {
+            return BLACK_CHARACTER;
+        }
+        return (byte) (WHITE_CHARACTER + 1 + (int) ((double) black / area * MIXED_DENSITY_LEVELS));
+    }
+
+    /**
+     * Renders the tiles of a row within the given columns, 64 tiles at a time.
+     * @param tiles The tile store.
+     * @param y The y position of the row.
+     * @param minX The x position of the left column, inclusive.
+     * @param maxX The x position of the right column, exclusive.
+     * @throws IOException if writing to the stream failed.
+     */
+    private void renderRow(TileStore tiles, int y, int minX, int maxX) throws IOException {
+        int firstWord = minX / Long.SIZE;
+        int lastWord = (maxX - 1) / Long.SIZE;
+        for (int wordIndex = firstWord; wordIndex <= lastWord; ++wordIndex) {
+            int wordX = wordIndex * Long.SIZE;
+            long word = tiles.getWord(wordX, y);
+            if (wordX + Long.SIZE > tiles.getWidth()) {
+                // Stores reaching beyond their width pass the tiles there as well, which are not part of the map.
+                word &= (1L << (tiles.getWidth() - wordX)) - 1;
+            }
+            int from = Math.max(minX, wordX);
+            int to = (int) Math.min(maxX, (long) wordX + Long.SIZE);
+            ensureCapacity(Long.SIZE);
+            for (int x = from; x < to; ++x) {
+                // Shifting a long only uses the lowest six bits of x, so x doubles as the bit index.
+                buffer[position++] = (byte) (WHITE_CHARACTER + (int) (word >>> x & 1));
+            }
+            while (nextAnt < antXs.length && antYs[nextAnt] == y && antXs[nextAnt] < to) {
+                if (antXs[nextAnt] >= from) {
+                    buffer[position - (to - antXs[nextAnt])] = antCharacters[nextAnt];
+                }
+                ++nextAnt;
+            }
+        }
+    }
+
+    /**
+     * Renders the tiles of a row within the given columns one by one, with the character of their color.
+     * @param tiles The tile store.
+     * @param y The y position of the row.
+     * @param minX The x position of the left column, inclusive.
+     * @param maxX The x position of the right column, exclusive.
+     * @throws IOException if writing to the stream failed.
+     */
+    private void renderColorRow(TileStore tiles, int y, int minX, int maxX) throws IOException {
+        for (int x = minX; x < maxX; ++x) {
+            ensureCapacity(1);
+            if (nextAnt < antXs.length && antYs[nextAnt] == y && antXs[nextAnt] == x) {
+                // Ants sharing a tile are adjacent, the one moving last is drawn.
+                while (nextAnt + 1 < antXs.length && antYs[nextAnt + 1] == y && antXs[nextAnt + 1] == x) {
+                    ++nextAnt;
+                }
+                buffer[position++] = antCharacters[nextAnt++];
+            } else {
+                buffer[position++] = (byte) TileCharacters.of(tiles.getColor(x, y));
+            }
+        }
+        while (nextAnt < antXs.length && antYs[nextAnt] == y) {
+            ++nextAnt;
+        }
+    }
+
+    /**
+     * Collects the positions and characters of the ants of the given world, ordered row by row.
+     * Ants sharing a tile keep their order, so the one moving last is drawn last.
+     * @param world The world.
+     */
+    private void prepareAnts(World world) {
+        List<Ant> ants = new ArrayList<>(world.getAnts());
+        ants.sort(Comparator.comparingInt(Ant::getY).thenComparingInt(Ant::getX));
+        antXs = new int[ants.size()];
+        antYs = new int[ants.size()];
+        antCharacters = new byte[ants.size()];
+        for (int i = 0; i < ants.size(); ++i) {
+            antXs[i] = ants.get(i).getX();
+            antYs[i] = ants.get(i).getY();
+            antCharacters[i] = (byte) world.antCharacter(ants.get(i));
+        }
+        nextAnt = 0;
+    }
+
+    /**
+     * Writes a line separator.
+     * @throws IOException if writing to the stream failed.
+     */
+    private void endLine() throws IOException {
+        ensureCapacity(LINE_SEPARATOR.length);
+        System.arraycopy(LINE_SEPARATOR, 0, buffer, position, LINE_SEPARATOR.length);
+        position += LINE_SEPARATOR.length;
+    }
+
+    /**
+     * Makes sure the buffer has space for the given amount of bytes, flushing it if not.
+     * @param bytes The amount of bytes.
+     * @throws IOException if writing to the stream failed.
+     */
+    private void ensureCapacity(int bytes) throws IOException {
+        if (position + bytes > buffer.length) {
+            flushBuffer();
+        }
+    }
+
+    /**
+     * Hands the contents of the buffer to the stream.
+     * @throws IOException if writing to the stream failed.
+     */
+    private void flushBuffer() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+    }
+}
@@ -0,0 +1,252 @@
+package edu.kit.kastel.game;
+
+import edu.kit.kastel.game.storage.BitGrid;
+import edu.kit.kastel.game.storage.TileStore;
+import edu.kit.kastel.game.worldbuilder.Direction;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Saves and restores worlds in a compact, versioned binary snapshot format.
+ * A snapshot starts with an uncompressed header holding the magic number, the format version, the payload
+ * compression, the direction of the first ant, width, height, position of the first ant and step counter,
+ * all big-endian. Worlds with several ants are saved in version 2, whose header is followed by the amount
+ * of further ants and their positions and directions. The payload follows: the tiles row by row as 64-bit
+ * words, bit i of a word holding the tile at x + i, compressed as given by the header.
+ *
+ * @author uwwfh
+ */
+final class WorldSnapshot {
+
+    private static final int MAGIC = 0x414E5457;
+    private static final short VERSION_SINGLE_ANT = 1;
+    private static final short VERSION_MULTI_ANT = 2;
+    private static final int HEADER_SIZE = 32;
+    private static final int ANT_SIZE = 2 * Integer.BYTES + 1;
+    private static final String ERROR_FORMAT = "the file is not a world snapshot.";
+    private static final String ERROR_VERSION = "unsupported snapshot version %d.";
+    private static final String ERROR_HEADER = "the snapshot header is corrupt.";
+    private static final String ERROR_TRUNCATED = "the snapshot is truncated.";
+
+    private WorldSnapshot() {
+    }
+
+    /**
+     * Writes a snapshot of the given world to the given path, replacing any existing file.
+     * @param world The world.
+     * @param path The path to write to.
+     * @param compression The compression of the payload.
+     * @throws IOException if writing the file failed.
+     */
+    static void write(World world, Path path, SnapshotCompression compression) throws IOException {
+        TileStore tiles = world.getTiles();
+        ByteBuffer header = header(world, compression);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            SnapshotWordWriter writer = new SnapshotWordWriter(channel, compression);
+            int wordsPerRow = wordsPerRow(tiles.getWidth());
+            for (int y = 0; y < tiles.getHeight(); ++y) {
+                for (int i = 0; i < wordsPerRow; ++i) {
+                    writer.write(tiles.getWord(i * Long.SIZE, y));
+                }
+            }
+            writer.finish();
+        }
+    }
+
+    /**
+     * Creates the header of a snapshot of the given world, followed by its further ants if it has several.
+     * @param world The world.
+     * @param compression The compression of the payload.
+     * @return The header, ready to be written.
+     */
+    private static ByteBuffer header(World world, SnapshotCompression compression) {
+        TileStore tiles = world.getTiles();
+        List<Ant> ants = world.getAnts();
+        Ant ant = ants.get(0);
+        int furtherAntsSize = ants.size() > 1 ? Integer.BYTES + (ants.size() - 1) * ANT_SIZE : 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + furtherAntsSize)
+                .putInt(MAGIC)
+                .putShort(ants.size() > 1 ? VERSION_MULTI_ANT : VERSION_SINGLE_ANT)
+                .put((byte) compression.ordinal())
+                .put((byte) ant.getDirectionOrdinal())
+                .putInt(tiles.getWidth())
+                .putInt(tiles.getHeight())
+                .putInt(ant.getX())
+                .putInt(ant.getY())
+                .putLong(world.getStepCount());
+        if (ants.size() > 1) {
+            header.putInt(ants.size() - 1);
+            for (Ant further : ants.subList(1, ants.size())) {
+                header.putInt(further.getX()).putInt(further.getY()).put((byte) further.getDirectionOrdinal());
+            }
+        }
+        return header.flip();
+    }
+
+    /**
+     * Reads the snapshot at the given path.
+     * @param path The path to read from.
+     * @param backend The backend to store the tiles of the restored world in.
+     * @return The restored world.
+     * @throws IOException if reading the file failed.
+     * @throws IllegalArgumentException if the file is not a valid snapshot.
+     */
+    static World read(Path path, WorldBackend backend) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = readFully(channel, HEADER_SIZE);
+            if (header.getInt() != MAGIC) {
+                throw new IllegalArgumentException(ERROR_FORMAT);
+            }
+            short version = header.getShort();
+            if (version != VERSION_SINGLE_ANT && version != VERSION_MULTI_ANT) {
+                throw new IllegalArgumentException(ERROR_VERSION.formatted(version));
+            }
+            int compression = header.get();
+            int direction = header.get();
+            int width = header.getInt();
+            int height = header.getInt();
+            List<WorldLayout.AntPlacement> ants = new ArrayList<>();
+            ants.add(readAnt(header.getInt(), header.getInt(), direction, width, height));
+            long stepCount = header.getLong();
+            if (compression < 0 || compression >= SnapshotCompression.values().length || stepCount < 0) {
+                throw new IllegalArgumentException(ERROR_HEADER);
+            }
+            if (version == VERSION_MULTI_ANT) {
+                readFurtherAnts(channel, ants, width, height);
+            }
+            BitGrid grid = readTiles(channel, SnapshotCompression.values()[compression], width, height);
+            return new World(new WorldLayout(grid, List.copyOf(ants)), backend, TurmiteRule.LANGTON, stepCount);
+        }
+    }
+
+    /**
+     * Reads the further ants of a version 2 snapshot.
+     * @param channel The channel, positioned right after the header.
+     * @param ants The list to add the ants to.
+     * @param width The width of the world.
+     * @param height The height of the world.
+     * @throws IOException if reading the file failed.
+     */
+    private static void readFurtherAnts(FileChannel channel, List<WorldLayout.AntPlacement> ants, int width, int height)
+            throws IOException {
+        int count = readFully(channel, Integer.BYTES).getInt();
+        if (count <= 0 || (long) count * ANT_SIZE > Math.min(channel.size(), Integer.MAX_VALUE)) {
+            throw new IllegalArgumentException(ERROR_HEADER);
+        }
+        ByteBuffer records = readFully(channel, count * ANT_SIZE);
+        for (int i = 0; i < count; ++i) {
+            ants.add(readAnt(records.getInt(), records.getInt(), records.get(), width, height));
+        }
+    }
+
+    /**
+     * Validates the state of an ant read from a snapshot. An ant may be outside the world by at most one tile,
+     * if it left the world before the snapshot was taken.
+     * @param x The x position of the ant.
+     * @param y The y position of the ant.
+     * @param direction The direction ordinal of the ant.
+     * @param width The width of the world.
+     * @param height The height of the world.
+     * @return The ant.
+     */
+    private static WorldLayout.AntPlacement readAnt(int x, int y, int direction, int width, int height) {
+        if (direction < 0 || direction >= Direction.values().length || width <= 0 || height <= 0
+                || x < -1 || x > width || y < -1 || y > height) {
+            throw new IllegalArgumentException(ERROR_HEADER);
+        }
+        return new WorldLayout.AntPlacement(x, y, Direction.fromOrdinal(direction));
+    }
+
+    /**
+     * Reads exactly the given amount of bytes.
+     * @param channel The channel to read from.
+     * @param size The amount of bytes.
+     * @return The bytes, ready to be read.
+     * @throws IOException if reading the file failed.
+     * @throws IllegalArgumentException if the file ends before.
+     */
+    private static ByteBuffer readFully(FileChannel channel, int size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        int read;
+        do {
+            read = channel.read(buffer);
+        } while (read >= 0 && buffer.hasRemaining());
+        if (buffer.hasRemaining()) {
+            throw new IllegalArgumentException(ERROR_FORMAT);
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * Reads the tile payload of a snapshot.
+     * @param channel The channel, positioned at the start of the payload.
+     * @param compression The compression of the payload.
+     * @param width The width of the world.
+     * @param height The height of the world.
+     * @return The grid holding the tiles.
+     * @throws IOException if reading the file failed.
+     */
+    private static BitGrid readTiles(FileChannel channel, SnapshotCompression compression, int width, int height)
+            throws IOException {
+        BitGrid grid = allocateGrid(channel, compression, width, height);
+        int wordsPerRow = wordsPerRow(width);
+        // Bits beyond the width of the grid must stay cleared, whatever the payload says.
+        long lastWordMask = width % Long.SIZE == 0 ? -1L : (1L << width) - 1;
+        SnapshotWordReader reader = new SnapshotWordReader(channel, compression);
+        try {
+            for (int y = 0; y < height; ++y) {
+                for (int i = 0; i < wordsPerRow - 1; ++i) {
+                    grid.setWord(i * Long.SIZE, y, reader.read());
+                }
+                grid.setWord((wordsPerRow - 1) * Long.SIZE, y, reader.read() & lastWordMask);
+            }
+        } finally {
+            reader.close();
+        }
+        return grid;
+    }
+
+    /**
+     * Allocates the grid for the tiles of a snapshot, after validating that the payload can hold them.
+     * An uncompressed payload has to hold every word, so the size of the file bounds the grid. A compressed payload
+     * may describe a grid of any size, so a grid that does not fit into memory is rejected as a corrupt header.
+     * @param channel The channel, positioned at the start of the payload.
+     * @param compression The compression of the payload.
+     * @param width The width of the world.
+     * @param height The height of the world.
+     * @return The grid, all tiles white.
+     * @throws IOException if reading the size of the file failed.
+     * @throws IllegalArgumentException if the payload cannot hold the grid or the grid does not fit into memory.
+     */
+    private static BitGrid allocateGrid(FileChannel channel, SnapshotCompression compression, int width, int height)
+            throws IOException {
+        long payloadSize = (long) wordsPerRow(width) * height * Long.BYTES;
+        if (compression == SnapshotCompression.NONE && payloadSize > channel.size() - channel.position()) {
+            throw new IllegalArgumentException(ERROR_TRUNCATED);
+        }
+        try {
+            return new BitGrid(width, height);
+        } catch (OutOfMemoryError e) {
+            throw new IllegalArgumentException(ERROR_HEADER);
+        }
+    }
+
+    /**
+     * Calculates the amount of 64-bit words needed for a row of the given width.
+     * @param width The width.
+     * @return The amount of words.
+     */
+    private static int wordsPerRow(int width) {
+        return (int) ((width + (long) Long.SIZE - 1) / Long.SIZE);
+    }
+}
@@ -0,0 +1,119 @@
+package edu.kit.kastel.game.storage;
+
+/**
+ * A dense, rectangular grid storing exactly one bit per tile.
+ * The bits are packed row-major into a long array, where every row starts at a fresh word.
+ * This way, no two rows ever share a word and a tile is addressed directly by its (x, y) position.
+ *
+ * @author uwwfh
+ */
+public final class BitGrid implements TileStore {
+
+    private static final int WORD_SHIFT = 6;
+    private static final int BIT_INDEX_MASK = Long.SIZE - 1;
+    private static final String ERROR_INVALID_SIZE = "the grid size must be positive, but was %dx%d.";
+    private static final String ERROR_TOO_LARGE = "a grid of %dx%d tiles exceeds the maximum supported size.";
+
+    private final int width;
+    private final int height;
+    private final int wordsPerRow;
+    private final long[] words;
+
+    /**
+     * Creates a new grid with all bits cleared.
+     * @param width The width of the grid, must be positive.
+     * @param height The height of the grid, must be positive.
+     * @throws IllegalArgumentException if the size is not positive or too large to be stored.
+     */
+    public BitGrid(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException(ERROR_INVALID_SIZE.formatted(width, height));
+        }
+        this.width = width;
+        this.height = height;
+        this.wordsPerRow = (int) ((width + (long) BIT_INDEX_MASK) >>> WORD_SHIFT);
+        long wordCount = (long) wordsPerRow * height;
+        if (wordCount > Integer.MAX_VALUE - 2) {
+            throw new IllegalArgumentException(ERROR_TOO_LARGE.formatted(width, height));
+        }
+        this.words = new long[(int) wordCount];
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public boolean contains(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    @Override
+    public boolean get(int x, int y) {
+        return (words[wordIndex(x, y)] & (1L << x)) != 0;
+    }
+
+    @Override
+    public void set(int x, int y, boolean value) {
+        int index = wordIndex(x, y);
+        if (value) {
+            words[index] |= 1L << x;
+        } else {
+            words[index] &= ~(1L << x);
+        }
+    }
+
+    @Override
+    public boolean flip(int x, int y) {
+        int index = wordIndex(x, y);
+        long mask = 1L << x;
+        long word = words[index];
+        words[index] = word ^ mask;
+        return (word & mask) != 0;
+    }
+
+    @Override
+    public long getWord(int x, int y) {
+        return words[wordIndex(x, y)];
+    }
+
+    /**
+     * Sets the word holding the 64 tiles of row y starting at x, which must be a multiple of 64.
+     * Bit i of the word holds the tile at x + i. Bits beyond the width of the grid must be cleared.
+     * @param x The x position of the first tile, a multiple of 64.
+     * @param y The y position.
+     * @param word The word.
+     */
+    public void setWord(int x, int y, long word) {
+        words[wordIndex(x, y)] = word;
+    }
+
+    /**
+     * Counts the set bits of the grid, the black tiles.
+     * @return The amount of set bits.
+     */
+    public long cardinality() {
+        long count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Calculates the index of the word holding the bit of the given position.
+     * Note that shifting a long only uses the lowest six bits of x, so x itself doubles as the bit index.
+     * @param x The x position.
+     * @param y The y position.
+     * @return The word index.
+     */
+    private int wordIndex(int x, int y) {
+        return y * wordsPerRow + (x >>> WORD_SHIFT);
+    }
+}
@@ -0,0 +1,86 @@
+package edu.kit.kastel.game.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A temporary file holding chunks evicted from memory, each in a slot of fixed size.
+ * Slots freed by reading a chunk back are reused for the next evicted chunks, so the file only grows to the
+ * largest amount of chunks evicted at the same time. The file is deleted once it is closed or the process ends.
+ *
+ * @author uwwfh
+ */
+final class ChunkSpillFile {
+
+    private static final String FILE_PREFIX = "ant-chunks-";
+    private static final String FILE_SUFFIX = ".bin";
+    private static final int INITIAL_FREE_CAPACITY = 16;
+    private static final String ERROR_TRUNCATED = "The spill file ended within a chunk.";
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private long[] freeOffsets = new long[INITIAL_FREE_CAPACITY];
+    private int freeCount;
+    private long end;
+
+    /**
+     * Creates a new, empty spill file.
+     * @param chunkWords The amount of words of a chunk.
+     * @throws IOException if the file could not be created.
+     */
+    ChunkSpillFile(int chunkWords) throws IOException {
+        Path path = Files.createTempFile(FILE_PREFIX, FILE_SUFFIX);
+        this.channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.DELETE_ON_CLOSE);
+        this.buffer = ByteBuffer.allocateDirect(chunkWords * Long.BYTES);
+    }
+
+    /**
+     * Writes a chunk to a free slot.
+     * @param words The words of the chunk.
+     * @return The offset of the slot, to read the chunk back from.
+     * @throws IOException if writing failed.
+     */
+    long write(long[] words) throws IOException {
+        long offset;
+        if (freeCount > 0) {
+            offset = freeOffsets[--freeCount];
+        } else {
+            offset = end;
+            end += buffer.capacity();
+        }
+        buffer.clear();
+        buffer.asLongBuffer().put(words);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, offset + buffer.position());
+        }
+        return offset;
+    }
+
+    /**
+     * Reads a chunk back and frees its slot.
+     * @param offset The offset of the slot, as returned when writing the chunk.
+     * @param words The array to read the words of the chunk into.
+     * @throws IOException if reading failed.
+     */
+    void read(long offset, long[] words) throws IOException {
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, offset + buffer.position());
+            if (read < 0) {
+                throw new IOException(ERROR_TRUNCATED);
+            }
+        }
+        buffer.flip();
+        buffer.asLongBuffer().get(words);
+        if (freeCount == freeOffsets.length) {
+            freeOffsets = Arrays.copyOf(freeOffsets, freeCount * 2);
+        }
+        freeOffsets[freeCount++] = offset;
+    }
+}
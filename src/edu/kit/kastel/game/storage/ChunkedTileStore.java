@@ -0,0 +1,322 @@
+package edu.kit.kastel.game.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * An unbounded tile store, holding the tiles in bit-packed chunks of 64 x 64 tiles.
+ * The chunks are kept in a hash map keyed by the packed chunk position, a primitive long. A chunk is only
+ * allocated once one of its tiles is set, so reading never allocates and a missing chunk is entirely white.
+ * At most a fixed amount of chunks is kept in memory. Beyond that, cold chunks are evicted to a temporary
+ * spill file, chosen by the clock algorithm: a chunk is only evicted if it was not used since the clock hand last
+ * passed it. Evicted chunks are read back transparently when they are used again.
+ * Width and height of the store are those of the world it was created from. The store itself reaches from
+ * {@link #MIN_POSITION} to {@link #LIMIT_POSITION} on both axes, so positions and their distances fit into an int.
+ * Every row and column of chunks knows the chunks allocated in it, so the black tiles of a single row or column
+ * are counted by reading just those chunks.
+ *
+ * @author uwwfh
+ */
+public final class ChunkedTileStore implements TileStore {
+
+    /**
+     * The smallest x and y position of a tile of the store.
+     */
+    public static final int MIN_POSITION = -(1 << 30);
+    /**
+     * The exclusive upper bound of the x and y positions of the tiles of the store.
+     */
+    public static final int LIMIT_POSITION = 1 << 30;
+    /**
+     * The binary logarithm of the side length of a chunk, which is one word wide.
+     */
+    public static final int CHUNK_SHIFT = 6;
+    /**
+     * The mask extracting the position of a tile within its chunk from its position.
+     */
+    public static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+    /**
+     * The default maximum amount of chunks kept in memory, 64 MiB of tiles.
+     */
+    public static final int DEFAULT_RESIDENT_CHUNKS = 1 << 17;
+    private static final int CHUNK_WORDS = 1 << CHUNK_SHIFT;
+    private static final long CHUNK_X_MASK = 0xFFFFFFFFL;
+    private static final int INITIAL_LINE_CAPACITY = 4;
+    private static final String ERROR_INVALID_CAPACITY = "The resident chunk capacity must be positive, but was %d.";
+
+    private final int width;
+    private final int height;
+    private final int residentCapacity;
+    private final LongObjectMap<Chunk> chunks = new LongObjectMap<>();
+    private final LongObjectMap<ChunkLine> chunkRows = new LongObjectMap<>();
+    private final LongObjectMap<ChunkLine> chunkColumns = new LongObjectMap<>();
+    private int residentChunks;
+    private int clockHand;
+    private ChunkSpillFile spillFile;
+
+    /**
+     * Creates a new store holding the same tiles as the given grid, which lies at its origin.
+     * @param source The grid to copy the tiles from.
+     * @param residentCapacity The maximum amount of chunks kept in memory, must be positive.
+     * @throws IllegalArgumentException if the capacity is not positive.
+     */
+    public ChunkedTileStore(BitGrid source, int residentCapacity) {
+        if (residentCapacity <= 0) {
+            throw new IllegalArgumentException(ERROR_INVALID_CAPACITY.formatted(residentCapacity));
+        }
+        this.width = source.getWidth();
+        this.height = source.getHeight();
+        this.residentCapacity = residentCapacity;
+        for (int y = 0; y < height; ++y) {
+            for (int x = 0; x < width; x += Long.SIZE) {
+                long word = source.getWord(x, y);
+                if (word != 0) {
+                    getChunkWords(x, y)[y & CHUNK_MASK] = word;
+                }
+            }
+        }
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public boolean contains(int x, int y) {
+        return x >= MIN_POSITION && x < LIMIT_POSITION && y >= MIN_POSITION && y < LIMIT_POSITION;
+    }
+
+    @Override
+    public boolean get(int x, int y) {
+        return (getWord(x, y) & 1L << x) != 0;
+    }
+
+    @Override
+    public void set(int x, int y, boolean value) {
+        long[] words = getChunkWords(x, y);
+        if (value) {
+            words[y & CHUNK_MASK] |= 1L << x;
+        } else {
+            words[y & CHUNK_MASK] &= ~(1L << x);
+        }
+    }
+
+    @Override
+    public boolean flip(int x, int y) {
+        long[] words = getChunkWords(x, y);
+        long word = words[y & CHUNK_MASK];
+        words[y & CHUNK_MASK] = word ^ 1L << x;
+        return (word & 1L << x) != 0;
+    }
+
+    @Override
+    public long getWord(int x, int y) {
+        Chunk chunk = chunks.get(chunkKey(x, y));
+        if (chunk == null) {
+            return 0;
+        }
+        return residentWords(chunk)[y & CHUNK_MASK];
+    }
+
+    @Override
+    public void forEachWord(WordConsumer consumer) {
+        for (int slot = 0; slot < chunks.capacity(); ++slot) {
+            Chunk chunk = chunks.valueAt(slot);
+            if (chunk != null) {
+                long key = chunks.keyAt(slot);
+                int chunkX = (int) key << CHUNK_SHIFT;
+                int chunkY = (int) (key >> Integer.SIZE) << CHUNK_SHIFT;
+                long[] words = residentWords(chunk);
+                for (int row = 0; row < CHUNK_WORDS; ++row) {
+                    consumer.accept(chunkX, chunkY + row, words[row]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the words of the chunk holding the given tile, allocating the chunk if it does not exist yet.
+     * Word i holds row i of the chunk, and bit j of a word the tile at column j. The array stays valid until
+     * the next call of a method of the store, which might evict the chunk.
+     * @param x The x position of the tile.
+     * @param y The y position of the tile.
+     * @return The words of the chunk.
+     */
+    public long[] getChunkWords(int x, int y) {
+        long key = chunkKey(x, y);
+        Chunk chunk = chunks.get(key);
+        if (chunk == null) {
+            chunk = new Chunk();
+            chunk.words = makeResident();
+            chunk.referenced = true;
+            chunks.add(key, chunk);
+            addToLine(chunkRows, y >> CHUNK_SHIFT, x >> CHUNK_SHIFT);
+            addToLine(chunkColumns, x >> CHUNK_SHIFT, y >> CHUNK_SHIFT);
+            return chunk.words;
+        }
+        return residentWords(chunk);
+    }
+
+    /**
+     * Counts the black tiles of the given row, reading only the chunks allocated in it.
+     * @param y The y position of the row.
+     * @return The amount of black tiles.
+     */
+    public long countRow(int y) {
+        ChunkLine line = chunkRows.get(y >> CHUNK_SHIFT);
+        long count = 0;
+        for (int i = 0; line != null && i < line.size; ++i) {
+            count += Long.bitCount(getWord(line.positions[i] << CHUNK_SHIFT, y));
+        }
+        return count;
+    }
+
+    /**
+     * Counts the black tiles of the given column, reading only the chunks allocated in it.
+     * @param x The x position of the column.
+     * @return The amount of black tiles.
+     */
+    public long countColumn(int x) {
+        ChunkLine line = chunkColumns.get(x >> CHUNK_SHIFT);
+        long count = 0;
+        for (int i = 0; line != null && i < line.size; ++i) {
+            for (long word : getChunkWords(x, line.positions[i] << CHUNK_SHIFT)) {
+                count += word >>> x & 1;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the amount of chunks that were allocated, in memory or evicted.
+     * @return The amount of chunks.
+     */
+    public int getChunkCount() {
+        return chunks.size();
+    }
+
+    /**
+     * Gets the amount of chunks currently kept in memory.
+     * @return The amount of resident chunks.
+     */
+    public int getResidentChunkCount() {
+        return residentChunks;
+    }
+
+    /**
+     * Gets the words of the given chunk, reading it back from the spill file if it was evicted,
+     * and marks it as recently used.
+     * @param chunk The chunk.
+     * @return The words of the chunk.
+     */
+    private long[] residentWords(Chunk chunk) {
+        chunk.referenced = true;
+        if (chunk.words == null) {
+            long[] words = makeResident();
+            try {
+                spillFile.read(chunk.spillOffset, words);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            chunk.words = words;
+        }
+        return chunk.words;
+    }
+
+    /**
+     * Makes room for one more chunk in memory, evicting a cold chunk if the capacity is reached.
+     * @return The cleared words for the new resident chunk, reused from the evicted chunk if possible.
+     */
+    private long[] makeResident() {
+        if (residentChunks < residentCapacity) {
+            ++residentChunks;
+            return new long[CHUNK_WORDS];
+        }
+        Chunk victim = nextVictim();
+        long[] words = victim.words;
+        try {
+            if (spillFile == null) {
+                spillFile = new ChunkSpillFile(CHUNK_WORDS);
+            }
+            victim.spillOffset = spillFile.write(words);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        victim.words = null;
+        Arrays.fill(words, 0);
+        return words;
+    }
+
+    /**
+     * Advances the clock hand to the next resident chunk that was not used since the hand last passed it,
+     * clearing the marks of the used chunks it passes on the way.
+     * @return The chunk to evict.
+     */
+    private Chunk nextVictim() {
+        while (true) {
+            clockHand = clockHand + 1 < chunks.capacity() ? clockHand + 1 : 0;
+            Chunk chunk = chunks.valueAt(clockHand);
+            if (chunk == null || chunk.words == null) {
+                continue;
+            }
+            if (!chunk.referenced) {
+                return chunk;
+            }
+            chunk.referenced = false;
+        }
+    }
+
+    /**
+     * Records that a chunk was allocated in the given row or column of chunks.
+     * @param lines The rows or columns of chunks.
+     * @param line The position of the row or column of the chunk, in chunks.
+     * @param position The position of the chunk within the row or column, in chunks.
+     */
+    private static void addToLine(LongObjectMap<ChunkLine> lines, int line, int position) {
+        ChunkLine chunkLine = lines.get(line);
+        if (chunkLine == null) {
+            chunkLine = new ChunkLine();
+            lines.add(line, chunkLine);
+        }
+        if (chunkLine.size == chunkLine.positions.length) {
+            chunkLine.positions = Arrays.copyOf(chunkLine.positions, chunkLine.size * 2);
+        }
+        chunkLine.positions[chunkLine.size++] = position;
+    }
+
+    /**
+     * Gets the key of the chunk holding the given tile, its row in the upper and its column in the lower half.
+     * @param x The x position of the tile.
+     * @param y The y position of the tile.
+     * @return The key of the chunk.
+     */
+    private static long chunkKey(int x, int y) {
+        return (long) (y >> CHUNK_SHIFT) << Integer.SIZE | (x >> CHUNK_SHIFT) & CHUNK_X_MASK;
+    }
+
+    /**
+     * A chunk of 64 x 64 tiles, either in memory or evicted to the spill file.
+     */
+    private static final class Chunk {
+
+        private long[] words;
+        private long spillOffset;
+        private boolean referenced;
+    }
+
+    /**
+     * The positions of the chunks allocated in a row or column of chunks, in the order they were allocated.
+     */
+    private static final class ChunkLine {
+
+        private int[] positions = new int[INITIAL_LINE_CAPACITY];
+        private int size;
+    }
+}
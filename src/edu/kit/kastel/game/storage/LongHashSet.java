@@ -0,0 +1,162 @@
+package edu.kit.kastel.game.storage;
+
+import java.util.Arrays;
+
+/**
+ * A hash set of primitive longs, using open addressing with linear probing.
+ * Removed keys are not marked by tombstones: the keys following them in their probe sequences are shifted back
+ * instead, so lookups never get slower after removals. The set doubles its capacity once it is three quarters full.
+ *
+ * @author uwwfh
+ */
+final class LongHashSet {
+
+    /**
+     * The key marking free slots, which can therefore not be stored in the set.
+     */
+    static final long FREE = -1;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MAX_LOAD_NUMERATOR = 3;
+    private static final int MAX_LOAD_DENOMINATOR = 4;
+    /**
+     * The multiplier of Fibonacci hashing, 2^64 divided by the golden ratio.
+     */
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private long[] slots;
+    private int shift;
+    private int size;
+
+    /**
+     * Creates a new, empty set with room for the given amount of keys before it has to grow.
+     * @param expectedSize The expected amount of keys.
+     */
+    LongHashSet(long expectedSize) {
+        int capacity = INITIAL_CAPACITY;
+        while ((long) capacity * MAX_LOAD_NUMERATOR < expectedSize * MAX_LOAD_DENOMINATOR) {
+            capacity *= 2;
+        }
+        this.slots = new long[capacity];
+        Arrays.fill(slots, FREE);
+        this.shift = Long.SIZE - Integer.numberOfTrailingZeros(capacity);
+    }
+
+    /**
+     * If the set contains the given key.
+     * @param key The key, must not be {@link #FREE}.
+     * @return true if the key is in the set, false if not.
+     */
+    boolean contains(long key) {
+        int mask = slots.length - 1;
+        for (int slot = slotOf(key); slots[slot] != FREE; slot = slot + 1 & mask) {
+            if (slots[slot] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds the given key to the set.
+     * @param key The key, must not be {@link #FREE}.
+     * @return true if the key was added, false if it was in the set already.
+     */
+    boolean add(long key) {
+        int mask = slots.length - 1;
+        int slot = slotOf(key);
+        while (slots[slot] != FREE) {
+            if (slots[slot] == key) {
+                return false;
+            }
+            slot = slot + 1 & mask;
+        }
+        slots[slot] = key;
+        ++size;
+        if ((long) size * MAX_LOAD_DENOMINATOR > (long) slots.length * MAX_LOAD_NUMERATOR) {
+            grow();
+        }
+        return true;
+    }
+
+    /**
+     * Removes the given key from the set, shifting the keys after it in its probe sequence back.
+     * @param key The key, must not be {@link #FREE}.
+     * @return true if the key was removed, false if it was not in the set.
+     */
+    boolean remove(long key) {
+        int mask = slots.length - 1;
+        int slot = slotOf(key);
+        while (slots[slot] != key) {
+            if (slots[slot] == FREE) {
+                return false;
+            }
+            slot = slot + 1 & mask;
+        }
+        int gap = slot;
+        for (int next = gap + 1 & mask; slots[next] != FREE; next = next + 1 & mask) {
+            // A key may fill the gap only if the gap lies between its home slot and its current slot.
+            int home = slotOf(slots[next]);
+            if ((next - home & mask) >= (next - gap & mask)) {
+                slots[gap] = slots[next];
+                gap = next;
+            }
+        }
+        slots[gap] = FREE;
+        --size;
+        return true;
+    }
+
+    /**
+     * Gets the amount of keys in the set.
+     * @return The amount of keys.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Gets the amount of slots of the set, each taking a long.
+     * @return The amount of slots.
+     */
+    int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * Gets the key stored in the given slot. Slot indices change when the set grows or keys are removed.
+     * @param slot The index of the slot, less than the capacity.
+     * @return The key or {@link #FREE} if the slot is empty.
+     */
+    long keyAt(int slot) {
+        return slots[slot];
+    }
+
+    /**
+     * Doubles the amount of slots, reinserting all keys.
+     */
+    private void grow() {
+        long[] oldSlots = slots;
+        slots = new long[oldSlots.length * 2];
+        Arrays.fill(slots, FREE);
+        --shift;
+        int mask = slots.length - 1;
+        for (long key : oldSlots) {
+            if (key != FREE) {
+                int slot = slotOf(key);
+                while (slots[slot] != FREE) {
+                    slot = slot + 1 & mask;
+                }
+                slots[slot] = key;
+            }
+        }
+    }
+
+    /**
+     * Gets the home slot of the given key, the first slot of its probe sequence.
+     * @param key The key.
+     * @return The index of the slot.
+     */
+    private int slotOf(long key) {
+        return (int) (key * HASH_MULTIPLIER >>> shift);
+    }
+}
@@ -0,0 +1,129 @@
+package edu.kit.kastel.game.storage;
+
+/**
+ * A hash map from primitive long keys to values, using open addressing with linear probing.
+ * Keys are never boxed, and looking a key up touches a single array slot in the common case.
+ * Entries can only be added, never removed, and the slots can be walked by index.
+ *
+ * @param <V> The value type.
+ * @author uwwfh
+ */
+final class LongObjectMap<V> {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MAX_LOAD_NUMERATOR = 3;
+    private static final int MAX_LOAD_DENOMINATOR = 4;
+    /**
+     * The multiplier of Fibonacci hashing, 2^64 divided by the golden ratio.
+     */
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private Object[] values = new Object[INITIAL_CAPACITY];
+    private int shift = Long.SIZE - Integer.numberOfTrailingZeros(INITIAL_CAPACITY);
+    private int size;
+
+    /**
+     * Gets the value of the given key.
+     * @param key The key.
+     * @return The value or {@code null} if the key is not in the map.
+     */
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        int mask = keys.length - 1;
+        for (int slot = slotOf(key); values[slot] != null; slot = slot + 1 & mask) {
+            if (keys[slot] == key) {
+                return (V) values[slot];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds the given key with the given value, which must not be in the map yet.
+     * @param key The key.
+     * @param value The value, must not be {@code null}.
+     */
+    void add(long key, V value) {
+        if ((size + 1L) * MAX_LOAD_DENOMINATOR > (long) keys.length * MAX_LOAD_NUMERATOR) {
+            grow();
+        }
+        insert(key, value);
+        ++size;
+    }
+
+    /**
+     * Gets the amount of entries in the map.
+     * @return The amount of entries.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Gets the amount of slots, which is the exclusive bound of the slot indices.
+     * @return The amount of slots.
+     */
+    int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Gets the value stored in the given slot. Slot indices change when the map grows.
+     * @param slot The index of the slot.
+     * @return The value or {@code null} if the slot is empty.
+     */
+    @SuppressWarnings("unchecked")
+    V valueAt(int slot) {
+        return (V) values[slot];
+    }
+
+    /**
+     * Gets the key stored in the given slot. Slot indices change when the map grows.
+     * @param slot The index of the slot.
+     * @return The key, only meaningful if the slot holds a value.
+     */
+    long keyAt(int slot) {
+        return keys[slot];
+    }
+
+    /**
+     * Stores the given entry in the first free slot of its probe sequence.
+     * @param key The key.
+     * @param value The value.
+     */
+    private void insert(long key, Object value) {
+        int mask = keys.length - 1;
+        int slot = slotOf(key);
+        while (values[slot] != null) {
+            slot = slot + 1 & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+    }
+
+    /**
+     * Doubles the amount of slots, reinserting all entries.
+     */
+    private void grow() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new Object[oldValues.length * 2];
+        --shift;
+        for (int slot = 0; slot < oldKeys.length; ++slot) {
+            if (oldValues[slot] != null) {
+                insert(oldKeys[slot], oldValues[slot]);
+            }
+        }
+    }
+
+    /**
+     * Gets the first slot of the probe sequence of the given key.
+     * @param key The key.
+     * @return The index of the slot.
+     */
+    private int slotOf(long key) {
+        return (int) (key * HASH_MULTIPLIER >>> shift);
+    }
+}
@@ -0,0 +1,39 @@
+package edu.kit.kastel.game.storage;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A map with a fixed capacity that evicts its least recently used entry once the capacity is exceeded.
+ *
+ * @param <K> The key type.
+ * @param <V> The value type.
+ * @author uwwfh
+ */
+public final class LruCache<K, V> extends LinkedHashMap<K, V> {
+
+    private static final long serialVersionUID = 1L;
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final String ERROR_INVALID_CAPACITY = "The capacity must be positive, but was %d.";
+
+    private final int capacity;
+
+    /**
+     * Creates a new, empty cache.
+     * @param capacity The maximum amount of entries, must be positive.
+     * @throws IllegalArgumentException if the capacity is not positive.
+     */
+    public LruCache(int capacity) {
+        super(INITIAL_CAPACITY, LOAD_FACTOR, true);
+        if (capacity <= 0) {
+            throw new IllegalArgumentException(ERROR_INVALID_CAPACITY.formatted(capacity));
+        }
+        this.capacity = capacity;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+        return size() > capacity;
+    }
+}
@@ -0,0 +1,139 @@
+package edu.kit.kastel.game.storage;
+
+/**
+ * An immutable, square block of tiles within a quadtree.
+ * A cell of level 0 is a leaf of 8x8 tiles packed into a single long, with bit {@code y * 8 + x} holding
+ * the tile at (x, y). A cell of level n > 0 consists of four quadrants of level n - 1.
+ * Cells are canonicalized by a {@link MacroCellStore}, so equal cells are usually the same instance,
+ * and two cells are considered equal if they have the same bits or the very same quadrants.
+ *
+ * @author uwwfh
+ */
+public final class MacroCell {
+
+    /**
+     * The binary logarithm of the side length of a leaf.
+     */
+    public static final int LEAF_SHIFT = 3;
+    /**
+     * The side length of a leaf.
+     */
+    public static final int LEAF_SIZE = 1 << LEAF_SHIFT;
+    /**
+     * The amount of quadrants of a cell that is not a leaf.
+     */
+    public static final int QUADRANTS = 4;
+
+    private final int level;
+    private final long bits;
+    private final MacroCell[] quadrants;
+    private final int hash;
+    private final long population;
+
+    /**
+     * Creates a new leaf.
+     * @param bits The tiles of the leaf.
+     */
+    MacroCell(long bits) {
+        this.level = 0;
+        this.bits = bits;
+        this.quadrants = null;
+        this.hash = Long.hashCode(bits);
+        this.population = Long.bitCount(bits);
+    }
+
+    /**
+     * Creates a new cell from its quadrants, which must all be of the same level.
+     * @param quadrants The quadrants in the order north-west, north-east, south-west, south-east. Will be copied.
+     */
+    MacroCell(MacroCell[] quadrants) {
+        this.level = quadrants[0].level + 1;
+        this.bits = 0;
+        this.quadrants = quadrants.clone();
+        int quadrantHash = 1;
+        long quadrantPopulation = 0;
+        for (MacroCell quadrant : this.quadrants) {
+            quadrantHash = 31 * quadrantHash + System.identityHashCode(quadrant);
+            quadrantPopulation += quadrant.population;
+        }
+        this.hash = quadrantHash;
+        this.population = quadrantPopulation;
+    }
+
+    /**
+     * Gets the level of the cell, 0 for leaves.
+     * @return The level.
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Gets the binary logarithm of the side length of the cell.
+     * @return The binary logarithm of the side length.
+     */
+    public int getSizeShift() {
+        return level + LEAF_SHIFT;
+    }
+
+    /**
+     * Gets the tiles of a leaf.
+     * @return The tiles of the leaf, 0 if the cell is not a leaf.
+     */
+    public long getBits() {
+        return bits;
+    }
+
+    /**
+     * Gets the amount of black tiles of the cell.
+     * @return The amount of black tiles.
+     */
+    public long getPopulation() {
+        return population;
+    }
+
+    /**
+     * Gets the quadrant with the given index. Must not be called on leaves.
+     * @param index The index, 0 = north-west, 1 = north-east, 2 = south-west, 3 = south-east.
+     * @return The quadrant.
+     */
+    public MacroCell getQuadrant(int index) {
+        return quadrants[index];
+    }
+
+    /**
+     * Copies the quadrants of the cell into the given array. Must not be called on leaves.
+     * @param target The array to copy into, must have a length of at least {@link #QUADRANTS}.
+     */
+    public void copyQuadrants(MacroCell[] target) {
+        System.arraycopy(quadrants, 0, target, 0, QUADRANTS);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        MacroCell that = (MacroCell) o;
+        if (level != that.level || hash != that.hash) {
+            return false;
+        }
+        if (level == 0) {
+            return bits == that.bits;
+        }
+        for (int i = 0; i < QUADRANTS; ++i) {
+            if (quadrants[i] != that.quadrants[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
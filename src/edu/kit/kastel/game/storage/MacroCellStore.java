@@ -0,0 +1,222 @@
+package edu.kit.kastel.game.storage;
+
+/**
+ * A tile store backed by a quadtree of canonicalized {@link MacroCell macro-cells}.
+ * The root cell is the smallest power-of-two square covering the store, tiles outside the store are white.
+ * Equal cells are shared through a canonicalization table, which is capped in size and evicts its least
+ * recently used cells. Evicted cells stay valid, they merely are no longer shared with newly created equal cells.
+ *
+ * @author uwwfh
+ */
+public final class MacroCellStore implements TileStore {
+
+    /**
+     * The default maximum amount of cells kept in the canonicalization table.
+     */
+    public static final int DEFAULT_CANONICAL_CAPACITY = 1 << 22;
+
+    private final int width;
+    private final int height;
+    private final LruCache<MacroCell, MacroCell> canonical;
+    private final MacroCell[] emptyCells;
+    private MacroCell root;
+
+    /**
+     * Creates a new store holding the same tiles as the given grid.
+     * @param source The grid to copy the tiles from.
+     * @param canonicalCapacity The maximum amount of cells kept in the canonicalization table.
+     */
+    public MacroCellStore(BitGrid source, int canonicalCapacity) {
+        this.width = source.getWidth();
+        this.height = source.getHeight();
+        this.canonical = new LruCache<>(canonicalCapacity);
+        int level = 0;
+        while ((long) MacroCell.LEAF_SIZE << level < Math.max(width, height)) {
+            ++level;
+        }
+        this.emptyCells = new MacroCell[level + 1];
+        this.root = build(source, 0, 0, level);
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public boolean contains(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    @Override
+    public boolean get(int x, int y) {
+        return isSet(root, x, y);
+    }
+
+    @Override
+    public void set(int x, int y, boolean value) {
+        root = with(root, x, y, value);
+    }
+
+    @Override
+    public boolean flip(int x, int y) {
+        boolean previous = get(x, y);
+        set(x, y, !previous);
+        return previous;
+    }
+
+    /**
+     * Gets the root cell, which covers the entire store with its north-west corner at (0, 0).
+     * @return The root cell.
+     */
+    public MacroCell getRoot() {
+        return root;
+    }
+
+    /**
+     * Replaces the root cell, which must be of the same level as the current one.
+     * @param root The new root cell.
+     */
+    public void setRoot(MacroCell root) {
+        this.root = root;
+    }
+
+    /**
+     * Gets the canonical leaf with the given tiles.
+     * @param bits The tiles of the leaf.
+     * @return The canonical leaf.
+     */
+    public MacroCell leaf(long bits) {
+        return canonicalize(new MacroCell(bits));
+    }
+
+    /**
+     * Gets the canonical cell with the given quadrants.
+     * @param quadrants The quadrants in the order north-west, north-east, south-west, south-east. Will be copied.
+     * @return The canonical cell.
+     */
+    public MacroCell node(MacroCell[] quadrants) {
+        return canonicalize(new MacroCell(quadrants));
+    }
+
+    /**
+     * Gets the tile at the given position relative to the north-west corner of the given cell.
+     * @param cell The cell.
+     * @param x The x position, must be inside the cell.
+     * @param y The y position, must be inside the cell.
+     * @return true if the tile is black, false if it is white.
+     */
+    public static boolean isSet(MacroCell cell, int x, int y) {
+        MacroCell current = cell;
+        int localX = x;
+        int localY = y;
+        while (current.getLevel() > 0) {
+            int shift = current.getSizeShift() - 1;
+            int mask = (1 << shift) - 1;
+            current = current.getQuadrant((localY >>> shift) << 1 | localX >>> shift);
+            localX &= mask;
+            localY &= mask;
+        }
+        return (current.getBits() >>> (localY << MacroCell.LEAF_SHIFT | localX) & 1) != 0;
+    }
+
+    /**
+     * Creates the canonical cell equal to the given one, except for one tile.
+     * @param cell The cell.
+     * @param x The x position of the tile, relative to the north-west corner of the cell.
+     * @param y The y position of the tile, relative to the north-west corner of the cell.
+     * @param value The new value of the tile.
+     * @return The canonical cell with the changed tile.
+     */
+    public MacroCell with(MacroCell cell, int x, int y, boolean value) {
+        if (cell.getLevel() == 0) {
+            long mask = 1L << (y << MacroCell.LEAF_SHIFT | x);
+            return leaf(value ? cell.getBits() | mask : cell.getBits() & ~mask);
+        }
+        int shift = cell.getSizeShift() - 1;
+        int mask = (1 << shift) - 1;
+        int index = (y >>> shift) << 1 | x >>> shift;
+        MacroCell[] quadrants = new MacroCell[MacroCell.QUADRANTS];
+        cell.copyQuadrants(quadrants);
+        quadrants[index] = with(quadrants[index], x & mask, y & mask, value);
+        return node(quadrants);
+    }
+
+    /**
+     * Gets the canonical cell equal to the given one, registering it if there is none yet.
+     * @param cell The cell.
+     * @return The canonical cell.
+     */
+    private MacroCell canonicalize(MacroCell cell) {
+        MacroCell existing = canonical.get(cell);
+        if (existing != null) {
+            return existing;
+        }
+        canonical.put(cell, cell);
+        return cell;
+    }
+
+    /**
+     * Builds the canonical cell holding the tiles of the given grid within the given square.
+     * @param source The grid.
+     * @param originX The x position of the north-west corner of the square.
+     * @param originY The y position of the north-west corner of the square.
+     * @param level The level of the cell to build.
+     * @return The canonical cell.
+     */
+    private MacroCell build(BitGrid source, int originX, int originY, int level) {
+        if (originX >= width || originY >= height) {
+            return empty(level);
+        }
+        if (level == 0) {
+            return leaf(readLeaf(source, originX, originY));
+        }
+        int half = 1 << (level + MacroCell.LEAF_SHIFT - 1);
+        MacroCell[] quadrants = new MacroCell[MacroCell.QUADRANTS];
+        for (int i = 0; i < MacroCell.QUADRANTS; ++i) {
+            quadrants[i] = build(source, originX + (i & 1) * half, originY + (i >>> 1) * half, level - 1);
+        }
+        return node(quadrants);
+    }
+
+    /**
+     * Reads the tiles of the given grid within an 8x8 square into the bits of a leaf.
+     * @param source The grid.
+     * @param originX The x position of the north-west corner of the square.
+     * @param originY The y position of the north-west corner of the square.
+     * @return The bits of the leaf.
+     */
+    private long readLeaf(BitGrid source, int originX, int originY) {
+        long bits = 0;
+        for (int y = 0; y < MacroCell.LEAF_SIZE; ++y) {
+            for (int x = 0; x < MacroCell.LEAF_SIZE; ++x) {
+                if (contains(originX + x, originY + y) && source.get(originX + x, originY + y)) {
+                    bits |= 1L << (y << MacroCell.LEAF_SHIFT | x);
+                }
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Gets the canonical cell of the given level holding only white tiles.
+     * @param level The level.
+     * @return The empty cell.
+     */
+    private MacroCell empty(int level) {
+        if (emptyCells[level] == null) {
+            if (level == 0) {
+                emptyCells[level] = leaf(0);
+            } else {
+                MacroCell quadrant = empty(level - 1);
+                emptyCells[level] = node(new MacroCell[] {quadrant, quadrant, quadrant, quadrant});
+            }
+        }
+        return emptyCells[level];
+    }
+}
@@ -0,0 +1,128 @@
+package edu.kit.kastel.game.storage;
+
+/**
+ * A dense grid of tiles of several colors, each stored as a small integer of 1, 2, 4 or 8 bits.
+ * The tiles are packed into long words row by row, and as the bits per tile divide 64, no tile straddles two words.
+ * Seen as a {@link TileStore} of black and white tiles, every color but white counts as black.
+ *
+ * @author uwwfh
+ */
+public final class PackedColorGrid implements TileStore {
+
+    private static final int MAX_BITS_PER_TILE = 8;
+    private static final String ERROR_INVALID_SIZE = "the grid size must be positive, but was %dx%d.";
+    private static final String ERROR_TOO_LARGE = "a grid of %dx%d tiles exceeds the maximum supported size.";
+    private static final String ERROR_TOO_MANY_COLORS = "a grid holds at most %d colors, but %d were requested.";
+
+    private final int width;
+    private final int height;
+    private final int colorCount;
+    private final int bitShift;
+    private final int tileShift;
+    private final long colorMask;
+    private final int wordsPerRow;
+    private final long[] words;
+
+    /**
+     * Creates a new grid of white tiles, using the fewest bits per tile that hold the given amount of colors.
+     * @param width The width of the grid, must be positive.
+     * @param height The height of the grid, must be positive.
+     * @param colorCount The amount of colors, at most 256.
+     * @throws IllegalArgumentException if the size is not positive or too large, or there are too many colors.
+     */
+    public PackedColorGrid(int width, int height, int colorCount) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException(ERROR_INVALID_SIZE.formatted(width, height));
+        }
+        if (colorCount > 1 << MAX_BITS_PER_TILE) {
+            throw new IllegalArgumentException(ERROR_TOO_MANY_COLORS.formatted(1 << MAX_BITS_PER_TILE, colorCount));
+        }
+        this.width = width;
+        this.height = height;
+        this.colorCount = colorCount;
+        int bits = 1;
+        while (1 << bits < colorCount) {
+            bits *= 2;
+        }
+        this.bitShift = Integer.numberOfTrailingZeros(bits);
+        this.tileShift = Integer.numberOfTrailingZeros(Long.SIZE) - bitShift;
+        this.colorMask = (1L << bits) - 1;
+        this.wordsPerRow = (int) ((width + (1L << tileShift) - 1) >>> tileShift);
+        long wordCount = (long) wordsPerRow * height;
+        if (wordCount > Integer.MAX_VALUE - 2) {
+            throw new IllegalArgumentException(ERROR_TOO_LARGE.formatted(width, height));
+        }
+        this.words = new long[(int) wordCount];
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public boolean contains(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    @Override
+    public boolean get(int x, int y) {
+        return getColor(x, y) != 0;
+    }
+
+    @Override
+    public void set(int x, int y, boolean value) {
+        setColor(x, y, value ? 1 : 0);
+    }
+
+    @Override
+    public boolean flip(int x, int y) {
+        boolean colored = get(x, y);
+        set(x, y, !colored);
+        return colored;
+    }
+
+    @Override
+    public int getColor(int x, int y) {
+        // Shifting a long only uses the lowest six bits, which are exactly the bit offset of the tile in its word.
+        return (int) (words[wordIndex(x, y)] >>> (x << bitShift) & colorMask);
+    }
+
+    @Override
+    public void setColor(int x, int y, int color) {
+        int index = wordIndex(x, y);
+        int shift = x << bitShift;
+        words[index] = words[index] & ~(colorMask << shift) | (long) color << shift;
+    }
+
+    /**
+     * Gets the amount of colors the grid was created for.
+     * @return The amount of colors.
+     */
+    public int getColorCount() {
+        return colorCount;
+    }
+
+    /**
+     * Gets the amount of bits each tile takes.
+     * @return The bits per tile, 1, 2, 4 or 8.
+     */
+    public int getBitsPerTile() {
+        return 1 << bitShift;
+    }
+
+    /**
+     * Calculates the index of the word holding the tile at the given position.
+     * @param x The x position.
+     * @param y The y position.
+     * @return The word index.
+     */
+    private int wordIndex(int x, int y) {
+        return y * wordsPerRow + (x >>> tileShift);
+    }
+}
@@ -0,0 +1,143 @@
+package edu.kit.kastel.game.storage;
+
+/**
+ * A tile store holding only the positions of its black tiles, in a hash set of packed {@code (x << 32) | y} longs.
+ * Its memory grows with the amount of black tiles rather than with the area, which makes it the better choice
+ * for large, mostly white maps. Accessing a tile costs a hash lookup instead of an array access.
+ * The store also counts the black tiles of every row, so words of rows without black tiles are known to be white
+ * without any lookup, and passing the words of the store only visits its black tiles.
+ *
+ * @author uwwfh
+ */
+public final class SparseTileStore implements TileStore {
+
+    /**
+     * The smallest area in tiles a map needs for the sparse store to be chosen automatically. Smaller dense
+     * grids fit into the caches and are always faster.
+     */
+    private static final long MIN_AUTOMATIC_AREA = 1L << 20;
+    /**
+     * The smallest ratio of the area to the black tiles of a map for the sparse store to be chosen automatically.
+     * A black tile takes a long in a set filled to between three eighths and three quarters, 85 to 170
+     * times its bit in a dense grid, and the ant adds black tiles as it walks, so only maps far sparser are chosen.
+     */
+    private static final long MIN_AUTOMATIC_SPARSENESS = 1L << 10;
+    private static final long Y_MASK = 0xFFFFFFFFL;
+
+    private final int width;
+    private final int height;
+    private final LongHashSet blackTiles;
+    private final int[] rowBlackTiles;
+
+    /**
+     * Creates a new store holding the same tiles as the given grid.
+     * @param source The grid to copy the tiles from.
+     */
+    public SparseTileStore(BitGrid source) {
+        this.width = source.getWidth();
+        this.height = source.getHeight();
+        this.blackTiles = new LongHashSet(source.cardinality());
+        this.rowBlackTiles = new int[height];
+        for (int y = 0; y < height; ++y) {
+            for (int x = 0; x < width; x += Long.SIZE) {
+                long word = source.getWord(x, y);
+                rowBlackTiles[y] += Long.bitCount(word);
+                for (; word != 0; word &= word - 1) {
+                    blackTiles.add(key(x + Long.numberOfTrailingZeros(word), y));
+                }
+            }
+        }
+    }
+
+    /**
+     * If a map with the tiles of the given grid is large and sparse enough to be stored in a sparse store
+     * rather than a dense grid, when choosing the backend automatically.
+     * @param grid The grid holding the tiles of the map.
+     * @return true if the sparse store is preferable, false if the dense grid is.
+     */
+    public static boolean isPreferable(BitGrid grid) {
+        long area = (long) grid.getWidth() * grid.getHeight();
+        return area >= MIN_AUTOMATIC_AREA && grid.cardinality() <= area / MIN_AUTOMATIC_SPARSENESS;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public boolean contains(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    @Override
+    public boolean get(int x, int y) {
+        return blackTiles.contains(key(x, y));
+    }
+
+    @Override
+    public void set(int x, int y, boolean value) {
+        if (value) {
+            if (blackTiles.add(key(x, y))) {
+                ++rowBlackTiles[y];
+            }
+        } else if (blackTiles.remove(key(x, y))) {
+            --rowBlackTiles[y];
+        }
+    }
+
+    @Override
+    public boolean flip(int x, int y) {
+        long key = key(x, y);
+        if (blackTiles.remove(key)) {
+            --rowBlackTiles[y];
+            return true;
+        }
+        blackTiles.add(key);
+        ++rowBlackTiles[y];
+        return false;
+    }
+
+    @Override
+    public long getWord(int x, int y) {
+        if (y < 0 || y >= height || rowBlackTiles[y] == 0) {
+            return 0;
+        }
+        return TileStore.super.getWord(x, y);
+    }
+
+    @Override
+    public void forEachWord(WordConsumer consumer) {
+        for (int slot = 0; slot < blackTiles.capacity(); ++slot) {
+            long key = blackTiles.keyAt(slot);
+            if (key != LongHashSet.FREE) {
+                int x = (int) (key >>> Integer.SIZE);
+                consumer.accept(x & ~(Long.SIZE - 1), (int) key, 1L << x);
+            }
+        }
+    }
+
+    /**
+     * Gets the amount of black tiles of the store.
+     * @return The amount of black tiles.
+     */
+    public int getBlackCount() {
+        return blackTiles.size();
+    }
+
+    /**
+     * Packs the given position into a key of the set. As positions inside the store are non-negative,
+     * no key is ever {@link LongHashSet#FREE}.
+     * @param x The x position.
+     * @param y The y position.
+     * @return The key.
+     */
+    private static long key(int x, int y) {
+        return (long) x << Integer.SIZE | y & Y_MASK;
+    }
+}
@@ -0,0 +1,107 @@
+package edu.kit.kastel.game.storage;
+
+/**
+ * A rectangular store of black and white tiles, addressed by their (x, y) position.
+ * All positions passed to the accessors must be inside the store, see {@link #contains(int, int)}.
+ *
+ * @author uwwfh
+ */
+public interface TileStore {
+
+    /**
+     * Gets the width of the store.
+     * @return The width.
+     */
+    int getWidth();
+
+    /**
+     * Gets the height of the store.
+     * @return The height.
+     */
+    int getHeight();
+
+    /**
+     * If the given position lies within the store.
+     * @param x The x position.
+     * @param y The y position.
+     * @return true if the position is inside the store, false if not.
+     */
+    boolean contains(int x, int y);
+
+    /**
+     * Gets the tile at the given position.
+     * @param x The x position.
+     * @param y The y position.
+     * @return true if the tile is black, false if it is white.
+     */
+    boolean get(int x, int y);
+
+    /**
+     * Sets the tile at the given position.
+     * @param x The x position.
+     * @param y The y position.
+     * @param value true to make the tile black, false to make it white.
+     */
+    void set(int x, int y, boolean value);
+
+    /**
+     * Inverts the tile at the given position.
+     * @param x The x position.
+     * @param y The y position.
+     * @return true if the tile was black before, false if it was white.
+     */
+    boolean flip(int x, int y);
+
+    /**
+     * Gets the color of the tile at the given position. Stores of black and white tiles hold the colors 0 and 1.
+     * @param x The x position.
+     * @param y The y position.
+     * @return The color, 0 for white.
+     */
+    default int getColor(int x, int y) {
+        return get(x, y) ? 1 : 0;
+    }
+
+    /**
+     * Sets the color of the tile at the given position. Stores of black and white tiles make every color but
+     * white black.
+     * @param x The x position.
+     * @param y The y position.
+     * @param color The color, 0 for white.
+     */
+    default void setColor(int x, int y, int color) {
+        set(x, y, color != 0);
+    }
+
+    /**
+     * Passes the black tiles of the store to the given consumer, word by word. Every black tile is part of exactly
+     * one of the passed words, which may come in any order. Words without black tiles may be skipped, and stores
+     * reaching beyond their width and height pass the words there as well.
+     * @param consumer The consumer of the words.
+     */
+    default void forEachWord(WordConsumer consumer) {
+        for (int y = 0; y < getHeight(); ++y) {
+            for (int x = 0; x < getWidth(); x += Long.SIZE) {
+                consumer.accept(x, y, getWord(x, y));
+            }
+        }
+    }
+
+    /**
+     * Gets the word holding the 64 tiles of row y starting at x, which must be a multiple of 64.
+     * Bit i of the word holds the tile at x + i. Bits beyond the width of the store are always cleared.
+     * @param x The x position of the first tile, a multiple of 64.
+     * @param y The y position.
+     * @return The word.
+     */
+    default long getWord(int x, int y) {
+        long word = 0;
+        int end = Math.min(Long.SIZE, getWidth() - x);
+        for (int i = 0; i < end; ++i) {
+            if (get(x + i, y)) {
+                word |= 1L << i;
+            }
+        }
+        return word;
+    }
+}
@@ -0,0 +1,18 @@
+package edu.kit.kastel.game.storage;
+
+/**
+ * Receives the black tiles of a tile store, 64 tiles of a row at a time, see {@link TileStore#forEachWord}.
+ *
+ * @author uwwfh
+ */
+@FunctionalInterface
+public interface WordConsumer {
+
+    /**
+     * Receives a word of tiles.
+     * @param x The x position of the first tile of the word, a multiple of 64.
+     * @param y The y position of the row.
+     * @param word The word, bit i holding the tile at x + i.
+     */
+    void accept(int x, int y, long word);
+}
@@ -2,8 +2,6 @@
 
 import java.util.Objects;
 import java.util.Optional;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * The coordinate class. Also provides static delta coordinates for movement.
@@ -33,10 +31,16 @@ public class Coordinate {
      */
     static final Coordinate LEFT = new Coordinate(-1, 0);
 
+    /**
+     * The packed coordinate returned for arguments that are not coordinates. No valid coordinate packs to it.
+     */
+    public static final long INVALID_PACKED = -1;
+
     private static final String FORMAT_STRING = "%d,%d";
-    private static final Pattern REGEX_PATTERN_PARSE = Pattern.compile("^(\\d+),(\\d+)$");
-    private static final int GROUP_INDEX_X = 2;
-    private static final int GROUP_INDEX_Y = 1;
+    private static final char SEPARATOR = ',';
+    private static final int NUMBER_BASE = 10;
+    private static final String LINE_TERMINATORS = "\n\r\u0085\u2028\u2029";
+    private static final String WINDOWS_LINE_TERMINATOR = "\r\n";
 
     private int x;
     private int y;
@@ -140,18 +144,82 @@ private static Coordinate copyOf(Coordinate coordinate) {
      * @return An optional of the parsed coordinate. May be empty.
      */
     public static Optional<Coordinate> parseCoordinate(String argument) {
-        Matcher matcher = REGEX_PATTERN_PARSE.matcher(argument);
-        if (!matcher.find()) {
+        long packed = parsePacked(argument);
+        if (packed == INVALID_PACKED) {
             return Optional.empty();
         }
-        int x;
-        int y;
-        try {
-            x = Integer.parseInt(matcher.group(GROUP_INDEX_X));
-            y = Integer.parseInt(matcher.group(GROUP_INDEX_Y));
-        } catch (NumberFormatException e) {
-            return Optional.empty();
+        return Optional.of(new Coordinate(packedX(packed), packedY(packed)));
+    }
+
+    /**
+     * Parses a coordinate matching "y,x" like {@link #parseCoordinate(String)}, but in a single scan and without
+     * creating any objects, packing it into a long for callers that do not need a Coordinate.
+     * Exactly the strings accepted by {@code ^(\d+),(\d+)$} are accepted, with both numbers fitting into an int.
+     * @param argument The characters to parse.
+     * @return The packed coordinate, to be unpacked with {@link #packedX(long)} and {@link #packedY(long)},
+     *         or {@link #INVALID_PACKED} if the characters are not a coordinate.
+     */
+    public static long parsePacked(CharSequence argument) {
+        int end = argument.length();
+        // Like the $ of a pattern, accepts a single line terminator at the very end.
+        if (end >= WINDOWS_LINE_TERMINATOR.length() && argument.charAt(end - 2) == WINDOWS_LINE_TERMINATOR.charAt(0)
+                && argument.charAt(end - 1) == WINDOWS_LINE_TERMINATOR.charAt(1)) {
+            end -= WINDOWS_LINE_TERMINATOR.length();
+        } else if (end > 0 && LINE_TERMINATORS.indexOf(argument.charAt(end - 1)) >= 0) {
+            --end;
+        }
+        int separator = 0;
+        while (separator < end && argument.charAt(separator) != SEPARATOR) {
+            ++separator;
+        }
+        long y = parseNumber(argument, 0, separator);
+        long x = parseNumber(argument, separator + 1, end);
+        if (y < 0 || x < 0) {
+            return INVALID_PACKED;
+        }
+        return y << Integer.SIZE | x;
+    }
+
+    /**
+     * Gets the x coordinate of a packed coordinate.
+     * @param packed The packed coordinate, as returned by {@link #parsePacked(CharSequence)}.
+     * @return The x coordinate.
+     */
+    public static int packedX(long packed) {
+        return (int) packed;
+    }
+
+    /**
+     * Gets the y coordinate of a packed coordinate.
+     * @param packed The packed coordinate, as returned by {@link #parsePacked(CharSequence)}.
+     * @return The y coordinate.
+     */
+    public static int packedY(long packed) {
+        return (int) (packed >>> Integer.SIZE);
+    }
+
+    /**
+     * Parses a non-empty sequence of decimal digits that fits into an int.
+     * @param characters The characters holding the number.
+     * @param start The index of the first digit.
+     * @param end The index after the last digit.
+     * @return The number, or -1 if the characters are empty, hold anything but digits or the number is too large.
+     */
+    private static long parseNumber(CharSequence characters, int start, int end) {
+        if (start >= end) {
+            return -1;
+        }
+        long number = 0;
+        for (int i = start; i < end; ++i) {
+            char character = characters.charAt(i);
+            if (character < '0' || character > '9') {
+                return -1;
+            }
+            number = number * NUMBER_BASE + (character - '0');
+            if (number > Integer.MAX_VALUE) {
+                return -1;
+            }
         }
-        return Optional.of(new Coordinate(x, y));
+        return number;
     }
 }
@@ -31,6 +31,12 @@ public enum Direction {
     private static final char RIGHT_CHAR = 'O';
     private static final char LEFT_CHAR = 'W';
 
+    private static final Direction[] VALUES = values();
+    private static final int[] DELTA_X = {0, 0, -1, 1};
+    private static final int[] DELTA_Y = {-1, 1, 0, 0};
+    private static final int[] CLOCKWISE_NEXT = {RIGHT.ordinal(), LEFT.ordinal(), UP.ordinal(), DOWN.ordinal()};
+    private static final int[] COUNTER_CLOCKWISE_NEXT = {LEFT.ordinal(), RIGHT.ordinal(), DOWN.ordinal(), UP.ordinal()};
+
     /**
      * Converts a direction to a coordinate.
      * @param dir The direction.
@@ -111,4 +117,49 @@ public static Direction counterClockwiseNext(final Direction dir) {
         };
     }
 
+    /**
+     * Gets the direction with the given ordinal.
+     * @param ordinal The ordinal of the direction.
+     * @return The direction.
+     */
+    public static Direction fromOrdinal(final int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    /**
+     * Gets the x delta of a single step in the direction with the given ordinal.
+     * @param ordinal The ordinal of the direction.
+     * @return The x delta, one of -1, 0 or 1.
+     */
+    public static int deltaX(final int ordinal) {
+        return DELTA_X[ordinal];
+    }
+
+    /**
+     * Gets the y delta of a single step in the direction with the given ordinal.
+     * @param ordinal The ordinal of the direction.
+     * @return The y delta, one of -1, 0 or 1.
+     */
+    public static int deltaY(final int ordinal) {
+        return DELTA_Y[ordinal];
+    }
+
+    /**
+     * Returns the ordinal of the direction that would result with a rotation of 90° clockwise.
+     * @param ordinal The ordinal of the direction.
+     * @return The ordinal of the rotated direction.
+     */
+    public static int clockwiseNext(final int ordinal) {
+        return CLOCKWISE_NEXT[ordinal];
+    }
+
+    /**
+     * Returns the ordinal of the direction that would result with a rotation of 90° counter-clockwise.
+     * @param ordinal The ordinal of the direction.
+     * @return The ordinal of the rotated direction.
+     */
+    public static int counterClockwiseNext(final int ordinal) {
+        return COUNTER_CLOCKWISE_NEXT[ordinal];
+    }
+
 }
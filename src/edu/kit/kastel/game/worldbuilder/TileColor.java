@@ -1,17 +0,0 @@
-package edu.kit.kastel.game.worldbuilder;
-
-/**
- * The Tile Color.
- *
- * @author uwwfh
- */
-public enum TileColor {
-    /**
-     * Color for white tiles.
-     */
-    WHITE,
-    /**
-     * Color for black tiles.
-     */
-    BLACK;
-}
@@ -0,0 +1,86 @@
+package edu.kit.kastel.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies in nanoseconds, with one bucket per power of two.
+ * Recording a latency takes a handful of atomic additions and never allocates, so it can be done for every
+ * command. The histogram is written by a single thread but may be read by others, such as JMX clients, at any time.
+ * Percentiles are reported as the upper bound of the bucket they fall into, so they are accurate within a factor
+ * of two.
+ *
+ * @author uwwfh
+ */
+public final class LatencyHistogram {
+
+    private static final double PERCENT = 100;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(Long.SIZE);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Records a latency.
+     * @param nanos The latency in nanoseconds, must be non-negative.
+     */
+    public void record(long nanos) {
+        // Bucket b holds the latencies below 2^b and at least 2^(b - 1).
+        buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(nanos));
+        count.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Gets the amount of recorded latencies.
+     * @return The amount of latencies.
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Gets the sum of all recorded latencies.
+     * @return The sum in nanoseconds.
+     */
+    public long getTotalNanos() {
+        return totalNanos.get();
+    }
+
+    /**
+     * Gets the mean of all recorded latencies.
+     * @return The mean in nanoseconds, 0 if nothing was recorded.
+     */
+    public long getMeanNanos() {
+        long recorded = count.get();
+        return recorded == 0 ? 0 : totalNanos.get() / recorded;
+    }
+
+    /**
+     * Gets the largest recorded latency.
+     * @return The largest latency in nanoseconds, 0 if nothing was recorded.
+     */
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * Gets an upper bound of the given percentile of the recorded latencies, the upper bound of its bucket.
+     * @param percentile The percentile, between 0 and 100.
+     * @return The upper bound in nanoseconds, never more than the largest latency, 0 if nothing was recorded.
+     */
+    public long getPercentileNanos(double percentile) {
+        long recorded = count.get();
+        long rank = (long) Math.ceil(recorded * percentile / PERCENT);
+        long seen = 0;
+        for (int bucket = 0; bucket < buckets.length(); ++bucket) {
+            seen += buckets.get(bucket);
+            if (seen >= rank && seen > 0) {
+                return Math.min((1L << bucket) - 1, maxNanos.get());
+            }
+        }
+        return maxNanos.get();
+    }
+}
@@ -0,0 +1,158 @@
+package edu.kit.kastel.metrics;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The metrics of a session: a latency histogram per command and the counters of the simulation.
+ * Everything is recorded once per command, never per simulation step, so the metrics cost nothing inside the
+ * simulation loop. The session thread writes the metrics, other threads such as JMX clients may read them.
+ * If the system property {@value #JMX_PROPERTY} is set to true, the metrics of every running session are
+ * registered as an MBean named {@code edu.kit.kastel:type=Session,id=<n>}. Registration is opt-in, as starting the
+ * platform MBean server costs a noticeable part of a second.
+ *
+ * @author uwwfh
+ */
+public final class SessionMetrics implements SessionMetricsMBean {
+
+    /**
+     * The system property enabling the registration of the metrics as MBeans.
+     */
+    public static final String JMX_PROPERTY = "edu.kit.kastel.jmx";
+    private static final String OBJECT_NAME_FORMAT = "edu.kit.kastel:type=Session,id=%d";
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final long NANOS_PER_MICRO = 1000;
+    private static final double MEDIAN = 50;
+    private static final double TAIL = 99;
+    private static final String LATENCY_FORMAT = "%s: %d calls, mean %d us, p50 %d us, p99 %d us, max %d us";
+
+    private final Map<String, LatencyHistogram> commandLatencies = new LinkedHashMap<>();
+    private final AtomicLong stepsExecuted = new AtomicLong();
+    private final AtomicLong tilesFlipped = new AtomicLong();
+    private final AtomicLong simulationNanos = new AtomicLong();
+    private volatile long lastBlackTiles = -1;
+    private ObjectName objectName;
+
+    /**
+     * Adds the latency histogram of a command. All commands have to be added before the session starts.
+     * @param name The name of the command.
+     * @return The latency histogram of the command.
+     */
+    public LatencyHistogram addCommand(String name) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        commandLatencies.put(name, histogram);
+        return histogram;
+    }
+
+    /**
+     * Records a run of the simulation.
+     * @param steps The amount of steps performed.
+     * @param flips The amount of times the ants changed the color of a tile.
+     * @param nanos The time the run took in nanoseconds.
+     */
+    public void recordSimulation(long steps, long flips, long nanos) {
+        stepsExecuted.addAndGet(steps);
+        tilesFlipped.addAndGet(flips);
+        simulationNanos.addAndGet(nanos);
+    }
+
+    /**
+     * Records the current amount of black tiles of the world.
+     * @param blackTiles The amount of black tiles.
+     */
+    public void recordBlackTiles(long blackTiles) {
+        lastBlackTiles = blackTiles;
+    }
+
+    @Override
+    public long getStepsExecuted() {
+        return stepsExecuted.get();
+    }
+
+    @Override
+    public long getTilesFlipped() {
+        return tilesFlipped.get();
+    }
+
+    @Override
+    public double getStepsPerSecond() {
+        long nanos = simulationNanos.get();
+        return nanos == 0 ? 0 : stepsExecuted.get() * NANOS_PER_SECOND / nanos;
+    }
+
+    @Override
+    public long getCommandsExecuted() {
+        long commands = 0;
+        for (LatencyHistogram histogram : commandLatencies.values()) {
+            commands += histogram.getCount();
+        }
+        return commands;
+    }
+
+    @Override
+    public long getLastBlackTiles() {
+        return lastBlackTiles;
+    }
+
+    @Override
+    public String[] getCommandLatencies() {
+        return describeCommandLatencies().toArray(String[]::new);
+    }
+
+    /**
+     * Describes the latencies of every command executed at least once, in the order the commands were added.
+     * @return The descriptions, one per command.
+     */
+    public List<String> describeCommandLatencies() {
+        List<String> descriptions = new ArrayList<>();
+        commandLatencies.forEach((name, histogram) -> {
+            if (histogram.getCount() > 0) {
+                descriptions.add(LATENCY_FORMAT.formatted(name, histogram.getCount(),
+                        histogram.getMeanNanos() / NANOS_PER_MICRO, histogram.getPercentileNanos(MEDIAN) / NANOS_PER_MICRO,
+                        histogram.getPercentileNanos(TAIL) / NANOS_PER_MICRO, histogram.getMaxNanos() / NANOS_PER_MICRO));
+            }
+        });
+        return Collections.unmodifiableList(descriptions);
+    }
+
+    /**
+     * Registers the metrics as an MBean if enabled by {@value #JMX_PROPERTY}. A failed registration leaves the
+     * session unmonitored, but running.
+     */
+    public void register() {
+        if (!Boolean.getBoolean(JMX_PROPERTY)) {
+            return;
+        }
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME_FORMAT.formatted(NEXT_ID.incrementAndGet()));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            objectName = name;
+        } catch (JMException e) {
+            objectName = null;
+        }
+    }
+
+    /**
+     * Unregisters the MBean of the metrics, if they were registered.
+     */
+    public void unregister() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            // The MBean is gone either way.
+        }
+        objectName = null;
+    }
+}
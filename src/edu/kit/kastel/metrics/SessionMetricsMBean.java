@@ -0,0 +1,45 @@
+package edu.kit.kastel.metrics;
+
+/**
+ * The management interface of the metrics of a session, as exposed through JMX.
+ *
+ * @author uwwfh
+ */
+public interface SessionMetricsMBean {
+
+    /**
+     * Gets the amount of simulation steps executed in the session.
+     * @return The amount of steps.
+     */
+    long getStepsExecuted();
+
+    /**
+     * Gets the amount of times the ants changed the color of a tile in the simulation steps of the session.
+     * @return The amount of flipped tiles.
+     */
+    long getTilesFlipped();
+
+    /**
+     * Gets the average rate the steps of the session were executed at, over the time spent simulating.
+     * @return The steps per second, 0 if no time was spent simulating yet.
+     */
+    double getStepsPerSecond();
+
+    /**
+     * Gets the amount of commands executed in the session.
+     * @return The amount of commands.
+     */
+    long getCommandsExecuted();
+
+    /**
+     * Gets the amount of black tiles of the world as of the latest move.
+     * @return The amount of black tiles, -1 if there was no move yet.
+     */
+    long getLastBlackTiles();
+
+    /**
+     * Gets a summary of the latencies of every command executed at least once, one line per command.
+     * @return The summaries.
+     */
+    String[] getCommandLatencies();
+}